@@ -1,25 +1,104 @@
 //@Author Sathvik Prahadeeswaran srp0061@auburn.edu
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
+/**
+ * Answers prefix queries over a fixed set of terms.
+ *
+ * An Autocomplete's terms never change after construction and queries only
+ * use local state and shared immutable comparators, so one instance can be
+ * queried by any number of threads without locking. Use
+ * SwappableAutocomplete to replace an index after a rebuild.
+ *
+ * A QueryListener can be attached to observe each query. With no listener
+ * the query path only pays for one volatile read.
+ *
+ * On the sorted array engine the weight index behind topMatches and
+ * fuzzyMatches is built the first time either is called, so callers that
+ * only use allMatches never pay for it.
+ */
 public final class Autocomplete {
+   /**
+    * The index used to answer prefix queries.
+    */
+   public enum Engine {
+      /** A sorted array of terms searched with BinarySearch. */
+      SORTED_ARRAY,
+      /** A compact trie with per-subtree max weights. */
+      TRIE,
+      /** Sorted queries packed into primitive arrays. */
+      PACKED
+   }
+
    private final Term[] terms;
+   private final boolean parallel;
+   private volatile MaxWeightTable maxWeight;
+   private final TermTrie trie;
+   private final PackedTermStore packed;
+   private volatile QueryListener listener;
 
 	/**
 	 * Initializes a data structure from the given array of terms.
 	 * This method throws a NullPointerException if terms is null.
 	 */
    public Autocomplete(Term[] terms) {
-      if (terms == null) {
-         throw new NullPointerException("null");
+      this(terms, Engine.SORTED_ARRAY);
+   }
+
+	/**
+	 * Initializes a data structure from the given array of terms, using the
+	 * given engine to answer queries. This method throws a NullPointerException
+	 * if terms or engine is null.
+	 */
+   public Autocomplete(Term[] terms, Engine engine) {
+      this(terms, engine, false);
+   }
+
+	/**
+	 * Initializes a data structure from the given array of terms, using the
+	 * given engine to answer queries. If parallel is true, sorting and the
+	 * weight index are built on the common fork-join pool, so build time
+	 * scales with the available cores. This method throws a
+	 * NullPointerException if terms or engine is null.
+	 */
+   public Autocomplete(Term[] terms, Engine engine, boolean parallel) {
+      this(sortedCopy(terms, engine, parallel), parallel, engine);
+   }
+
+   /**
+    * Builds an index over terms that are already sorted in ascending
+    * lexicographic order of query, skipping the sort. The array is kept by
+    * the sorted array engine, so the caller must not modify it afterwards.
+    */
+   static Autocomplete ofSorted(Term[] sorted, Engine engine, boolean parallel) {
+      return new Autocomplete(sorted, parallel, engine);
+   }
+
+   private Autocomplete(Term[] sorted, boolean parallel, Engine engine) {
+      Term[] t = null;
+      TermTrie tr = null;
+      PackedTermStore p = null;
+      if (engine == Engine.TRIE) {
+         tr = new TermTrie(sorted);
       }
-      this.terms = new Term[terms.length];
-   
-      for (int i = 0; i < terms.length; i++) {
-         this.terms[i] = terms[i];
+      else if (engine == Engine.PACKED) {
+         p = new PackedTermStore(sorted, parallel);
       }
-   
-      Arrays.sort(this.terms);
+      else {
+         t = sorted;
+      }
+      this.terms = t;
+      this.parallel = parallel;
+      this.trie = tr;
+      this.packed = p;
    }
 
     /**
@@ -28,21 +107,382 @@ public final class Autocomplete {
 	 */
    public Term[] allMatches(String prefix) {
       if (prefix == null) throw new NullPointerException("null");
+      QueryListener l = listener;
+      if (l == null) {
+         return allMatches(prefix, null);
+      }
+      int[] comparisons = new int[1];
+      long start = System.nanoTime();
+      Term[] matches = allMatches(prefix, comparisons);
+      l.onQuery(prefix, QueryListener.ALL, matches.length, comparisons(comparisons),
+         System.nanoTime() - start);
+      return matches;
+   }
+
+   private Term[] allMatches(String prefix, int[] comparisons) {
+      if (trie != null) {
+         return trie.allMatches(prefix);
+      }
+      if (packed != null) {
+         return packed.allMatches(prefix);
+      }
    
-      Term term = new Term(prefix, 0);
-      int firstIndex = BinarySearch.firstIndexOf(terms, term, Term.byPrefixOrder(prefix.length()));
-      if (firstIndex == -1) {
-         return new Term[0];
+      return byWeight(matchRange(prefix, 0, comparisons));
+   }
+
+    /**
+	 * Returns allMatches(prefix) for every prefix in the list, in list order.
+	 * The prefixes are sorted first so that, on the sorted array engine, each
+	 * search starts where the previous prefix's range began instead of at the
+	 * front of the array. If parallel is true, the sorted prefixes are split
+	 * into chunks that are swept on the common fork-join pool. Each prefix is
+	 * reported to the QueryListener as an allMatches query, on every engine.
+	 * This method throws a NullPointerException if prefixes or any prefix is
+	 * null.
+	 */
+   public Term[][] batchMatches(List<String> prefixes, boolean parallel) {
+      if (prefixes == null) throw new NullPointerException("null");
+      final String[] query = prefixes.toArray(new String[0]);
+      for (String prefix : query) {
+         if (prefix == null) throw new NullPointerException("null");
       }
-      int lastIndex  = BinarySearch.lastIndexOf (terms, term, Term.byPrefixOrder(prefix.length()));
+      final Integer[] order = new Integer[query.length];
+      for (int i = 0; i < order.length; i++) {
+         order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> query[a].compareTo(query[b]));
    
-      Term[] matches = new Term[1 + lastIndex - firstIndex];
+      final Term[][] results = new Term[query.length][];
+      int chunks = parallel ? 4 * ForkJoinPool.getCommonPoolParallelism() : 1;
+      final int chunkSize = Math.max(1, (order.length + chunks - 1) / chunks);
+      IntStream starts = IntStream.range(0, (order.length + chunkSize - 1) / chunkSize);
+      if (parallel) {
+         starts = starts.parallel();
+      }
+      final QueryListener l = listener;
+      starts.forEach(chunk -> {
+         int from = 0;
+         int end = Math.min(order.length, (chunk + 1) * chunkSize);
+         for (int i = chunk * chunkSize; i < end; i++) {
+            String prefix = query[order[i]];
+            int[] comparisons = l == null ? null : new int[1];
+            long start = l == null ? 0 : System.nanoTime();
+            Term[] matches;
+            if (terms == null) {
+               matches = allMatches(prefix, comparisons);
+            }
+            else {
+               int[] range = matchRange(prefix, from, comparisons);
+               if (range != null) {
+                  from = range[0];
+               }
+               matches = byWeight(range);
+            }
+            if (l != null) {
+               l.onQuery(prefix, QueryListener.ALL, matches.length, comparisons(comparisons),
+                  System.nanoTime() - start);
+            }
+            results[order[i]] = matches;
+         }
+      });
+      return results;
+   }
+
+    /**
+	 * Returns the k heaviest terms that start with the given prefix, in descending
+	 * order of weight. Fewer than k terms are returned if fewer terms match.
+	 * This method throws a NullPointerException if prefix is null, and an
+	 * IllegalArgumentException if k is negative.
+	 */
+   public Term[] topMatches(String prefix, int k) {
+      if (prefix == null) throw new NullPointerException("null");
+      if (k < 0) throw new IllegalArgumentException("k < 0");
+      QueryListener l = listener;
+      if (l == null) {
+         return topMatches(prefix, k, null);
+      }
+      int[] comparisons = new int[1];
+      long start = System.nanoTime();
+      Term[] matches = topMatches(prefix, k, comparisons);
+      l.onQuery(prefix, k, matches.length, comparisons(comparisons), System.nanoTime() - start);
+      return matches;
+   }
+
+   private Term[] topMatches(String prefix, int k, int[] comparisons) {
+      if (trie != null) {
+         return trie.topMatches(prefix, k);
+      }
+      if (packed != null) {
+         return packed.topMatches(prefix, k);
+      }
    
-      for (int i = 0; i < matches.length; i++) {
-         matches[i] = terms[firstIndex++];
+      int[] range = matchRange(prefix, 0, comparisons);
+      if (range == null) {
+         return new Term[0];
+      }
+      int[] top = maxWeight().topIndices(range[0], range[1], k);
+      Term[] matches = new Term[top.length];
+      for (int i = 0; i < top.length; i++) {
+         matches[i] = terms[top[i]];
+      }
+      return matches;
+   }
+
+    /**
+	 * Returns the k heaviest terms that start with a string within maxEdits
+	 * edits (insertions, deletions or substitutions) of the given prefix, in
+	 * descending order of weight. This tolerates typos such as "teh" for "the".
+	 * Every engine supports this. This method throws a NullPointerException if
+	 * prefix is null, and an IllegalArgumentException if maxEdits or k is
+	 * negative.
+	 */
+   public Term[] fuzzyMatches(String prefix, int maxEdits, int k) {
+      if (prefix == null) throw new NullPointerException("null");
+      if (maxEdits < 0) throw new IllegalArgumentException("maxEdits < 0");
+      if (k < 0) throw new IllegalArgumentException("k < 0");
+      if (trie != null) {
+         return trie.fuzzyMatches(prefix, maxEdits, k);
+      }
+      if (packed != null) {
+         return packed.fuzzyMatches(prefix, maxEdits, k);
       }
    
+      FuzzyRanges.Queries queries = new FuzzyRanges.Queries() {
+         public int size() {
+            return terms.length;
+         }
+      
+         public int length(int index) {
+            return terms[index].getQuery().length();
+         }
+      
+         public char charAt(int index, int position) {
+            return terms[index].getQuery().charAt(position);
+         }
+      };
+      int[] top = maxWeight().topIndices(FuzzyRanges.find(queries, prefix, maxEdits), k);
+      Term[] matches = new Term[top.length];
+      for (int i = 0; i < top.length; i++) {
+         matches[i] = terms[top[i]];
+      }
+      return matches;
+   }
+
+    /**
+	 * Sets the listener told about every allMatches and topMatches call, and
+	 * about each prefix of a batchMatches call as an allMatches query, or
+	 * removes it if listener is null.
+	 */
+   public void setQueryListener(QueryListener listener) {
+      this.listener = listener;
+   }
+
+    /**
+	 * Returns an estimate, in bytes, of the heap used by this index.
+	 */
+   public long memoryFootprint() {
+      if (trie != null) {
+         return trie.memoryFootprint();
+      }
+      if (packed != null) {
+         return packed.memoryFootprint();
+      }
+      // Term header and fields, String header and fields, and the String's
+      // value array, which compact strings keep at one byte per character
+      // unless the query needs more than Latin-1. Arrays round up to 8 bytes.
+      long bytes = 16 + 4L * terms.length;
+      for (Term t : terms) {
+         bytes += 24 + 24 + ((16 + stringBytes(t.getQuery()) + 7) & ~7L);
+      }
+      MaxWeightTable m = maxWeight;
+      if (m != null) {
+         bytes += 16 + 8L * terms.length + m.memoryFootprint();
+      }
+      return bytes;
+   }
+
+   private static long stringBytes(String query) {
+      for (int i = 0; i < query.length(); i++) {
+         if (query.charAt(i) > 0xFF) {
+            return 2L * query.length();
+         }
+      }
+      return query.length();
+   }
+
+   /**
+    * Returns every term in ascending lexicographic order of query. On the
+    * sorted array engine this is the index's own array, which must not be
+    * modified.
+    */
+   Term[] sortedTerms() {
+      if (trie != null) {
+         return trie.sortedTerms();
+      }
+      if (packed != null) {
+         return packed.sortedTerms();
+      }
+      return terms;
+   }
+
+   private static Term[] sortedCopy(Term[] terms, Engine engine, boolean parallel) {
+      if (terms == null || engine == null) {
+         throw new NullPointerException("null");
+      }
+      Term[] sorted = Arrays.copyOf(terms, terms.length);
+      if (parallel) {
+         Arrays.parallelSort(sorted);
+      }
+      else {
+         Arrays.sort(sorted);
+      }
+      return sorted;
+   }
+
+   /**
+    * Returns the weight index over terms, building it on first use. Two
+    * threads may race to build it; both build the same immutable table and
+    * either one may be kept.
+    */
+   private MaxWeightTable maxWeight() {
+      MaxWeightTable m = maxWeight;
+      if (m == null) {
+         long[] weights = new long[terms.length];
+         if (parallel) {
+            Arrays.parallelSetAll(weights, i -> terms[i].getWeight());
+         }
+         else {
+            Arrays.setAll(weights, i -> terms[i].getWeight());
+         }
+         m = new MaxWeightTable(weights, parallel);
+         maxWeight = m;
+      }
+      return m;
+   }
+
+   /**
+    * Returns {first, last} index of the terms matching prefix, or null if
+    * there are none, searching only terms[from ..]. batchMatches passes the
+    * previous prefix's first index, since no match can lie before it. If
+    * comparisons is not null, comparisons[0] counts comparator calls.
+    */
+   private int[] matchRange(String prefix, final int from, final int[] comparisons) {
+      final Term term = new Term(prefix, 0);
+      final Comparator<Term> byPrefix = Term.byPrefixOrder(prefix.length());
+      BinarySearch.IndexComparator comparator;
+      if (comparisons == null) {
+         comparator = index -> byPrefix.compare(term, terms[from + index]);
+      }
+      else {
+         comparator = index -> {
+            comparisons[0]++;
+            return byPrefix.compare(term, terms[from + index]);
+         };
+      }
+      int[] range = BinarySearch.equalRange(terms.length - from, comparator);
+      if (range[0] == -1) {
+         return null;
+      }
+      range[0] += from;
+      range[1] += from;
+      return range;
+   }
+
+   /**
+    * Only the sorted array engine counts comparisons.
+    */
+   private int comparisons(int[] comparisons) {
+      return terms == null ? QueryListener.NOT_COUNTED : comparisons[0];
+   }
+
+   private Term[] byWeight(int[] range) {
+      if (range == null) {
+         return new Term[0];
+      }
+      Term[] matches = Arrays.copyOfRange(terms, range[0], range[1] + 1);
       Arrays.sort(matches, Term.byDescendingWeightOrder());
       return matches;
    }
+
+    /**
+	 * Prints how long a build takes with 1, 2, 4, ... threads up to the
+	 * number of cores, next to the sequential build, for random terms. Each
+	 * build includes the weight index, so on the sorted array engine the
+	 * first topMatches call is timed with the constructor. Parallel builds run
+	 * on the common fork-join pool, so each thread count is measured in a
+	 * fresh JVM whose common pool has that many threads.
+	 * Usage: java -Xmx16g Autocomplete [engine] [terms ...]
+	 * The engine defaults to SORTED_ARRAY and the sizes to 1M, 10M and 50M.
+	 */
+   public static void main(String[] args) throws IOException, InterruptedException {
+      if (args.length == 4 && args[0].equals("-build")) {
+         printBuild(Engine.valueOf(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+         return;
+      }
+      String engine = args.length > 0 ? Engine.valueOf(args[0]).name() : Engine.SORTED_ARRAY.name();
+      String[] sizes = {"1000000", "10000000", "50000000"};
+      if (args.length > 1) {
+         sizes = Arrays.copyOfRange(args, 1, args.length);
+      }
+      int cores = Runtime.getRuntime().availableProcessors();
+      // Zero threads stands for the sequential build.
+      ArrayList<Integer> counts = new ArrayList<Integer>();
+      counts.add(0);
+      for (int doubling = 1; doubling < 2 * cores; doubling *= 2) {
+         counts.add(Math.min(doubling, cores));
+      }
+      for (String size : sizes) {
+         System.out.printf("%s, %s terms:%n", engine, size);
+         for (int threads : counts) {
+            ArrayList<String> command = new ArrayList<String>();
+            command.add(ProcessHandle.current().info().command().orElse("java"));
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-Djava.util.concurrent.ForkJoinPool.common.parallelism="
+               + Math.max(threads, 1));
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("Autocomplete");
+            command.add("-build");
+            command.add(engine);
+            command.add(size);
+            command.add(Integer.toString(threads));
+            Process child = new ProcessBuilder(command).inheritIO().start();
+            if (child.waitFor() != 0) {
+               System.exit(1);
+            }
+         }
+      }
+   }
+
+   /**
+    * Builds an index over size random terms, with threads threads or
+    * sequentially if threads is 0, and prints the time taken.
+    */
+   private static void printBuild(Engine engine, int size, int threads) {
+      Random random = new Random(size);
+      Term[] terms = new Term[size];
+      for (int i = 0; i < size; i++) {
+         char[] query = new char[1 + random.nextInt(12)];
+         for (int j = 0; j < query.length; j++) {
+            query[j] = (char) ('a' + random.nextInt(26));
+         }
+         terms[i] = new Term(new String(query), random.nextInt(1000000000));
+      }
+      // An untimed build on a slice, so the JIT has compiled the build.
+      buildMillis(Arrays.copyOf(terms, Math.min(size, 100000)), engine, threads > 0);
+      long millis = buildMillis(terms, engine, threads > 0);
+      if (threads == 0) {
+         System.out.printf("   sequential  %6d ms%n", millis);
+      }
+      else {
+         System.out.printf("   %3d threads %6d ms%n", threads, millis);
+      }
+   }
+
+   private static long buildMillis(Term[] terms, Engine engine, boolean parallel) {
+      long start = System.nanoTime();
+      Autocomplete index = new Autocomplete(terms, engine, parallel);
+      index.topMatches("a", 1);
+      return (System.nanoTime() - start) / 1000000;
+   }
 }
\ No newline at end of file
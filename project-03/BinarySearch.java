@@ -69,4 +69,82 @@ public class BinarySearch {
       return -1;
    }
 
+ /**
+   * Compares the search key against the element stored at an index. Used to
+   * search collections that are not held in a Key[], such as a memory-mapped
+   * file.
+   */
+   public interface IndexComparator {
+      /**
+       * Returns a negative number, zero, or a positive number as the search
+       * key is less than, equal to, or greater than the element at index.
+       */
+      int compareAt(int index);
+   }
+
+ /**
+   * Returns {first, last}, the indexes of the first and last keys in a[] that
+   * equal the search key, or {-1, -1} if no such key exists. Both bounds are
+   * found in one descent with a single comparison per step: once an equal key
+   * is hit, the two halves on either side of it are searched separately. This
+   * method throws a NullPointerException if any parameter is null.
+   */
+   public static <Key> int[] equalRange(Key[] a, Key key, Comparator<Key> comparator) {
+      if (a == null || key == null || comparator == null) {
+         throw new NullPointerException("null parameters");
+      }
+      return equalRange(a.length, index -> comparator.compare(key, a[index]));
+   }
+
+ /**
+   * Returns {first, last} for the elements in [0, size) that equal the search
+   * key, or {-1, -1} if there are none. This method throws a
+   * NullPointerException if comparator is null.
+   */
+   public static int[] equalRange(int size, IndexComparator comparator) {
+      if (comparator == null) {
+         throw new NullPointerException("null parameters");
+      }
+      int low = 0;
+      int high = size;
+      while (low < high) {
+         int mid = low + (high - low) / 2;
+         int c = comparator.compareAt(mid);
+         if (c > 0) {
+            low = mid + 1;
+         }
+         else if (c < 0) {
+            high = mid;
+         }
+         else {
+            // Lower bound in [low, mid], upper bound in (mid, high).
+            int lo = low;
+            int hi = mid;
+            while (lo < hi) {
+               int m = lo + (hi - lo) / 2;
+               if (comparator.compareAt(m) > 0) {
+                  lo = m + 1;
+               }
+               else {
+                  hi = m;
+               }
+            }
+            int first = lo;
+            lo = mid + 1;
+            hi = high;
+            while (lo < hi) {
+               int m = lo + (hi - lo) / 2;
+               if (comparator.compareAt(m) >= 0) {
+                  lo = m + 1;
+               }
+               else {
+                  hi = m;
+               }
+            }
+            return new int[] {first, lo - 1};
+         }
+      }
+      return new int[] {-1, -1};
+   }
+
 }
\ No newline at end of file
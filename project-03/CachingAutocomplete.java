@@ -0,0 +1,319 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded result cache in front of a SwappableAutocomplete.
+ *
+ * Results are cached per (prefix, k). Eviction uses TinyLFU admission: a
+ * count-min sketch estimates how often each key is requested, and when the
+ * cache is full a new result only replaces the least recently used entry
+ * if its key is requested more often. This keeps popular prefixes cached
+ * even when a burst of one-off prefixes passes through. The cache is
+ * cleared whenever a new index is swapped in.
+ *
+ * Hits never lock. Results live in a ConcurrentHashMap, and a hit only
+ * records its key in one of several striped read buffers, picked by
+ * thread. The buffers are drained into the sketch and the LRU order under
+ * a lock that readers only ever try to take, as W-TinyLFU caches do. A
+ * full buffer drops the access, which only makes the LRU order and the
+ * frequency estimates slightly less exact. Misses take the lock to admit
+ * their result.
+ */
+public final class CachingAutocomplete {
+   private static final int ALL = -1;
+
+   private final SwappableAutocomplete index;
+   private final int capacity;
+   private final ConcurrentHashMap<String, Cached> cache;
+   private final ReadBuffer[] buffers;
+   private final ReentrantLock evictionLock = new ReentrantLock();
+   // Guarded by evictionLock.
+   private final LinkedHashMap<String, Boolean> lru;
+   private final FrequencySketch sketch;
+   private Autocomplete cachedFor;
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong evictions = new AtomicLong();
+   private final AtomicLong rejections = new AtomicLong();
+
+	/**
+	 * Initializes a cache holding at most capacity results. This method throws
+	 * a NullPointerException if index is null, and an IllegalArgumentException
+	 * if capacity is less than 1.
+	 */
+   public CachingAutocomplete(SwappableAutocomplete index, int capacity) {
+      if (index == null) throw new NullPointerException("null");
+      if (capacity < 1) throw new IllegalArgumentException("capacity < 1");
+      this.index = index;
+      this.capacity = capacity;
+      cache = new ConcurrentHashMap<String, Cached>();
+      int stripes = Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() - 1) * 2;
+      buffers = new ReadBuffer[Math.min(64, stripes)];
+      for (int i = 0; i < buffers.length; i++) {
+         buffers[i] = new ReadBuffer();
+      }
+      lru = new LinkedHashMap<String, Boolean>(16, 0.75f, true);
+      sketch = new FrequencySketch(capacity);
+   }
+
+	/**
+	 * Returns all terms that start with the given prefix, in descending order
+	 * of weight. This method throws a NullPointerException if prefix is null.
+	 */
+   public Term[] allMatches(String prefix) {
+      if (prefix == null) throw new NullPointerException("null");
+      return lookup(prefix, ALL);
+   }
+
+	/**
+	 * Returns the k heaviest terms that start with the given prefix, in
+	 * descending order of weight. This method throws a NullPointerException if
+	 * prefix is null, and an IllegalArgumentException if k is negative.
+	 */
+   public Term[] topMatches(String prefix, int k) {
+      if (prefix == null) throw new NullPointerException("null");
+      if (k < 0) throw new IllegalArgumentException("k < 0");
+      return lookup(prefix, k);
+   }
+
+	/**
+	 * Removes every cached result.
+	 */
+   public void invalidate() {
+      evictionLock.lock();
+      try {
+         cache.clear();
+         lru.clear();
+      }
+      finally {
+         evictionLock.unlock();
+      }
+   }
+
+	/** Returns the number of queries answered from the cache. */
+   public long hitCount() {
+      return hits.get();
+   }
+
+	/** Returns the number of queries that had to search the index. */
+   public long missCount() {
+      return misses.get();
+   }
+
+	/** Returns the number of cached results evicted to make room. */
+   public long evictionCount() {
+      return evictions.get();
+   }
+
+	/** Returns the number of results not cached because their key was too rare. */
+   public long rejectionCount() {
+      return rejections.get();
+   }
+
+	/** Returns the number of results currently cached. */
+   public int size() {
+      return cache.size();
+   }
+
+   private Term[] lookup(String prefix, int k) {
+      Autocomplete current = index.get();
+      String key = k + ":" + prefix;
+      Cached cached = cache.get(key);
+      // An entry made for an index that has since been swapped out is a miss.
+      if (cached != null && cached.index == current) {
+         hits.incrementAndGet();
+         ReadBuffer buffer = buffers[stripe()];
+         if (buffer.offer(key) && evictionLock.tryLock()) {
+            try {
+               drainBuffers();
+            }
+            finally {
+               evictionLock.unlock();
+            }
+         }
+         return cached.result.clone();
+      }
+      misses.incrementAndGet();
+      Term[] result = k == ALL ? current.allMatches(prefix) : current.topMatches(prefix, k);
+      evictionLock.lock();
+      try {
+         drainBuffers();
+         Autocomplete latest = index.get();
+         if (latest != cachedFor) {
+            cache.clear();
+            lru.clear();
+            cachedFor = latest;
+         }
+         sketch.increment(key);
+         if (current == latest) {
+            admit(key, new Cached(current, result));
+         }
+      }
+      finally {
+         evictionLock.unlock();
+      }
+      return result.clone();
+   }
+
+   /**
+    * Caches an entry unless the cache is full and the LRU victim is
+    * requested at least as often as key. Callers must hold evictionLock.
+    */
+   private void admit(String key, Cached entry) {
+      if (lru.containsKey(key) || lru.size() < capacity) {
+         lru.put(key, Boolean.TRUE);
+         cache.put(key, entry);
+         return;
+      }
+      Iterator<String> it = lru.keySet().iterator();
+      String victim = it.next();
+      if (sketch.frequency(key) > sketch.frequency(victim)) {
+         it.remove();
+         cache.remove(victim);
+         evictions.incrementAndGet();
+         lru.put(key, Boolean.TRUE);
+         cache.put(key, entry);
+      }
+      else {
+         rejections.incrementAndGet();
+      }
+   }
+
+   /**
+    * Replays the hits recorded in the read buffers into the sketch and the
+    * LRU order. Callers must hold evictionLock.
+    */
+   private void drainBuffers() {
+      for (ReadBuffer buffer : buffers) {
+         String key;
+         while ((key = buffer.poll()) != null) {
+            sketch.increment(key);
+            lru.get(key);
+         }
+      }
+   }
+
+   private int stripe() {
+      int h = (int) Thread.currentThread().getId() * 0x9e3779b9;
+      return (h ^ (h >>> 16)) & (buffers.length - 1);
+   }
+
+   /**
+    * A cached result and the index it was computed on.
+    */
+   private static final class Cached {
+      final Autocomplete index;
+      final Term[] result;
+   
+      Cached(Autocomplete index, Term[] result) {
+         this.index = index;
+         this.result = result;
+      }
+   }
+
+   /**
+    * A bounded, lossy ring of recorded hits. Any thread may offer; only the
+    * holder of evictionLock polls.
+    */
+   private static final class ReadBuffer {
+      private static final int SIZE = 16;
+      private static final int DRAIN_AT = SIZE / 2;
+   
+      private final AtomicReferenceArray<String> slots = new AtomicReferenceArray<String>(SIZE);
+      private final AtomicLong writes = new AtomicLong();
+      private volatile long reads;
+   
+      /**
+       * Records key unless the buffer is full or another thread wins the
+       * slot, and returns true once the buffer is worth draining.
+       */
+      boolean offer(String key) {
+         long w = writes.get();
+         long pending = w - reads;
+         if (pending < SIZE && writes.compareAndSet(w, w + 1)) {
+            slots.lazySet((int) (w & (SIZE - 1)), key);
+            pending++;
+         }
+         return pending >= DRAIN_AT;
+      }
+   
+      /**
+       * Returns the oldest recorded key, or null if there is none or its
+       * writer has claimed the slot but not yet filled it.
+       */
+      String poll() {
+         long r = reads;
+         if (r == writes.get()) {
+            return null;
+         }
+         int slot = (int) (r & (SIZE - 1));
+         String key = slots.get(slot);
+         if (key != null) {
+            slots.lazySet(slot, null);
+            reads = r + 1;
+         }
+         return key;
+      }
+   }
+
+   /**
+    * A count-min sketch of counters that saturate at 15. All counters are
+    * halved after a fixed number of increments so old popularity fades.
+    */
+   private static final class FrequencySketch {
+      private static final int DEPTH = 4;
+      private static final int MAX_COUNT = 15;
+      private static final int[] SEEDS = {0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f};
+   
+      private final int[][] table;
+      private final int mask;
+      private final int resetAt;
+      private int additions;
+   
+      FrequencySketch(int capacity) {
+         int width = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+         table = new int[DEPTH][width];
+         mask = width - 1;
+         resetAt = 10 * width;
+      }
+   
+      void increment(String key) {
+         int h = key.hashCode();
+         for (int i = 0; i < DEPTH; i++) {
+            int slot = index(h, i);
+            if (table[i][slot] < MAX_COUNT) {
+               table[i][slot]++;
+            }
+         }
+         if (++additions >= resetAt) {
+            for (int[] row : table) {
+               for (int j = 0; j < row.length; j++) {
+                  row[j] >>>= 1;
+               }
+            }
+            additions /= 2;
+         }
+      }
+   
+      int frequency(String key) {
+         int h = key.hashCode();
+         int min = MAX_COUNT;
+         for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, table[i][index(h, i)]);
+         }
+         return min;
+      }
+   
+      private int index(int h, int i) {
+         int x = h * SEEDS[i];
+         return (x ^ (x >>> 16)) & mask;
+      }
+   }
+}
@@ -0,0 +1,108 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the queries, held in sorted order, that start with some string
+ * within maxEdits insertions, deletions or substitutions of a prefix.
+ *
+ * The sorted queries are walked as an implicit trie. The queries sharing
+ * their first d characters form a range, and the children of that range
+ * are found by binary searching for where the character at position d
+ * changes. Each step seeks straight to the next character present in the
+ * data, the way Lucene intersects a Levenshtein automaton with its sorted
+ * term dictionary, rather than scanning every query. One row of the
+ * Levenshtein table is carried per character: a range is dropped once
+ * every entry of its row exceeds maxEdits, and a range whose last entry
+ * is within maxEdits matches as a whole.
+ */
+final class FuzzyRanges {
+   /**
+    * Read access to queries sorted in ascending lexicographic order.
+    */
+   interface Queries {
+      int size();
+
+      int length(int index);
+
+      char charAt(int index, int position);
+   }
+
+   private FuzzyRanges() {
+   }
+
+   /**
+    * Returns disjoint {low, high} index ranges covering exactly the
+    * matching queries.
+    */
+   static List<int[]> find(Queries queries, String prefix, int maxEdits) {
+      List<int[]> ranges = new ArrayList<int[]>();
+      int n = queries.size();
+      if (n == 0) {
+         return ranges;
+      }
+      int[] row = new int[prefix.length() + 1];
+      for (int j = 0; j < row.length; j++) {
+         row[j] = j;
+      }
+      if (row[prefix.length()] <= maxEdits) {
+         ranges.add(new int[] {0, n - 1});
+      }
+      else {
+         search(queries, 0, n - 1, 0, row, prefix, maxEdits, ranges);
+      }
+      return ranges;
+   }
+
+   /**
+    * Searches queries[low .. high], which all share their first depth
+    * characters, whose Levenshtein row is previous.
+    */
+   private static void search(Queries queries, int low, int high, int depth, int[] previous,
+                              String prefix, int maxEdits, List<int[]> ranges) {
+      int m = prefix.length();
+      // A query that ends here sorts before the longer ones.
+      while (low <= high && queries.length(low) == depth) {
+         low++;
+      }
+      while (low <= high) {
+         char c = queries.charAt(low, depth);
+         int last = lastWith(queries, low, high, depth, c);
+         int[] row = new int[m + 1];
+         row[0] = previous[0] + 1;
+         int min = row[0];
+         for (int j = 1; j <= m; j++) {
+            int substitute = previous[j - 1] + (prefix.charAt(j - 1) == c ? 0 : 1);
+            row[j] = Math.min(substitute, Math.min(row[j - 1], previous[j]) + 1);
+            min = Math.min(min, row[j]);
+         }
+         if (row[m] <= maxEdits) {
+            ranges.add(new int[] {low, last});
+         }
+         else if (min <= maxEdits) {
+            search(queries, low, last, depth + 1, row, prefix, maxEdits, ranges);
+         }
+         low = last + 1;
+      }
+   }
+
+   /**
+    * Returns the last index in [low, high] whose character at position is
+    * c, given that the one at low is c and all are longer than position.
+    */
+   private static int lastWith(Queries queries, int low, int high, int position, char c) {
+      int lo = low + 1;
+      int hi = high + 1;
+      while (lo < hi) {
+         int mid = lo + (hi - lo) / 2;
+         if (queries.charAt(mid, position) <= c) {
+            lo = mid + 1;
+         }
+         else {
+            hi = mid;
+         }
+      }
+      return lo - 1;
+   }
+}
@@ -0,0 +1,215 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A sorted term dictionary stored in a binary file and read through a
+ * memory mapping, so opening it does not parse or sort anything and the
+ * data stays off the heap. Term objects are only created for the results
+ * of a query.
+ *
+ * File layout (big-endian):
+ *    int magic, int n,
+ *    int[n + 1] offsets of each query into the byte section,
+ *    long[n] weights,
+ *    UTF-8 bytes of every query, in ascending order of query.
+ *
+ * The buffer is only read with absolute gets, which never move its
+ * position, so one dictionary can serve many threads at once.
+ *
+ * Queries are compared byte by byte, which matches String order as long as
+ * the queries contain no supplementary (surrogate pair) characters.
+ */
+public final class MappedTermDictionary {
+   static final int MAGIC = 0x54524d31;
+
+   private final ByteBuffer buffer;
+   private final int size;
+   private final int offsetsStart;
+   private final int weightsStart;
+   private final int bytesStart;
+
+   private MappedTermDictionary(ByteBuffer buffer) {
+      if (buffer.getInt(0) != MAGIC) {
+         throw new IllegalArgumentException("not a term dictionary");
+      }
+      this.buffer = buffer;
+      size = buffer.getInt(4);
+      offsetsStart = 8;
+      weightsStart = offsetsStart + 4 * (size + 1);
+      bytesStart = weightsStart + 8 * size;
+   }
+
+	/**
+	 * Sorts the given terms and writes them to fileName in the binary
+	 * dictionary format. This method throws a NullPointerException if terms
+	 * or fileName is null.
+	 */
+   public static void write(Term[] terms, String fileName) throws IOException {
+      if (terms == null || fileName == null) {
+         throw new NullPointerException("null");
+      }
+      Term[] sorted = Arrays.copyOf(terms, terms.length);
+      Arrays.sort(sorted);
+      byte[][] queries = new byte[sorted.length][];
+      for (int i = 0; i < sorted.length; i++) {
+         queries[i] = sorted[i].getQuery().getBytes(StandardCharsets.UTF_8);
+      }
+   
+      try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(fileName)))) {
+         out.writeInt(MAGIC);
+         out.writeInt(sorted.length);
+         int offset = 0;
+         out.writeInt(offset);
+         for (byte[] q : queries) {
+            offset += q.length;
+            out.writeInt(offset);
+         }
+         for (Term t : sorted) {
+            out.writeLong(t.getWeight());
+         }
+         for (byte[] q : queries) {
+            out.write(q);
+         }
+      }
+   }
+
+	/**
+	 * Opens a dictionary written by write. This method throws an
+	 * IllegalArgumentException if the file is not a dictionary or is larger
+	 * than 2GB.
+	 */
+   public static MappedTermDictionary open(String fileName) throws IOException {
+      if (fileName == null) {
+         throw new NullPointerException("null");
+      }
+      try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+           FileChannel channel = file.getChannel()) {
+         if (channel.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("dictionary larger than 2GB");
+         }
+         // The mapping stays valid after the channel is closed.
+         MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         return new MappedTermDictionary(map);
+      }
+   }
+
+	/**
+	 * Returns the number of terms in this dictionary.
+	 */
+   public int size() {
+      return size;
+   }
+
+	/**
+	 * Returns all terms that start with the given prefix, in descending order
+	 * of weight. This method throws a NullPointerException if prefix is null.
+	 */
+   public Term[] allMatches(String prefix) {
+      if (prefix == null) throw new NullPointerException("null");
+      int[] range = matchRange(prefix);
+      if (range == null) {
+         return new Term[0];
+      }
+      Term[] matches = new Term[1 + range[1] - range[0]];
+      for (int i = 0; i < matches.length; i++) {
+         matches[i] = termAt(range[0] + i);
+      }
+      Arrays.sort(matches, Term.byDescendingWeightOrder());
+      return matches;
+   }
+
+	/**
+	 * Returns the k heaviest terms that start with the given prefix, in
+	 * descending order of weight. Only the returned terms are decoded.
+	 * This method throws a NullPointerException if prefix is null, and an
+	 * IllegalArgumentException if k is negative.
+	 */
+   public Term[] topMatches(String prefix, int k) {
+      if (prefix == null) throw new NullPointerException("null");
+      if (k < 0) throw new IllegalArgumentException("k < 0");
+      int[] range = matchRange(prefix);
+      if (range == null || k == 0) {
+         return new Term[0];
+      }
+      // Min-heap of the k heaviest indices seen so far.
+      PriorityQueue<Integer> heap = new PriorityQueue<Integer>(k + 1,
+         (a, b) -> Long.compare(weightAt(a), weightAt(b)));
+      for (int i = range[0]; i <= range[1]; i++) {
+         if (heap.size() < k) {
+            heap.add(i);
+         }
+         else if (weightAt(i) > weightAt(heap.peek())) {
+            heap.remove();
+            heap.add(i);
+         }
+      }
+      Term[] matches = new Term[heap.size()];
+      for (int i = matches.length - 1; i >= 0; i--) {
+         matches[i] = termAt(heap.remove());
+      }
+      return matches;
+   }
+
+   private int[] matchRange(String prefix) {
+      final byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+      BinarySearch.IndexComparator comparator = index -> comparePrefix(key, index);
+      int[] range = BinarySearch.equalRange(size, comparator);
+      return range[0] == -1 ? null : range;
+   }
+
+   /**
+    * Compares key against the first key.length bytes of the query at index.
+    */
+   private int comparePrefix(byte[] key, int index) {
+      int start = bytesStart + buffer.getInt(offsetsStart + 4 * index);
+      int length = bytesStart + buffer.getInt(offsetsStart + 4 * (index + 1)) - start;
+      int n = Math.min(key.length, length);
+      for (int i = 0; i < n; i++) {
+         int a = key[i] & 0xff;
+         int b = buffer.get(start + i) & 0xff;
+         if (a != b) {
+            return a - b;
+         }
+      }
+      return key.length <= length ? 0 : 1;
+   }
+
+   private long weightAt(int index) {
+      return buffer.getLong(weightsStart + 8 * index);
+   }
+
+   private Term termAt(int index) {
+      int start = bytesStart + buffer.getInt(offsetsStart + 4 * index);
+      int end = bytesStart + buffer.getInt(offsetsStart + 4 * (index + 1));
+      byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) {
+         bytes[i] = buffer.get(start + i);
+      }
+      return new Term(new String(bytes, StandardCharsets.UTF_8), weightAt(index));
+   }
+
+	/**
+	 * Builds a dictionary file from a text file of "weight<TAB>query" lines.
+	 * Usage: java MappedTermDictionary input.txt output.dict
+	 */
+   public static void main(String[] args) throws IOException {
+      if (args.length != 2) {
+         System.err.println("usage: java MappedTermDictionary input.txt output.dict");
+         System.exit(1);
+      }
+      int count = TermLoader.buildDictionary(args[0], args[1], 1000000);
+      System.out.println("wrote " + count + " terms to " + args[1]);
+   }
+}
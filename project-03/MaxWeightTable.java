@@ -0,0 +1,132 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * A segment tree answering "index of the largest weight in [low, high]"
+ * in O(log n) time. The tree is bottom-up with its leaves left implicit,
+ * so it takes n ints on top of the weights. Ties go to the lower index.
+ */
+public final class MaxWeightTable {
+   private final long[] weights;
+   private final int n;
+   // tree[i], for 0 < i < n, is the index of the max weight under node i.
+   // Node i has children 2i and 2i + 1, and node n + i is the leaf for
+   // weights[i], which needs no storage.
+   private final int[] tree;
+
+	/**
+	 * Builds the table over the given weights. The array is not copied.
+	 */
+   public MaxWeightTable(long[] weights) {
+      this(weights, false);
+   }
+
+	/**
+	 * Builds the table over the given weights, filling each level in
+	 * parallel on the common fork-join pool if parallel is true.
+	 */
+   public MaxWeightTable(long[] weights, boolean parallel) {
+      this.weights = weights;
+      n = weights.length;
+      tree = new int[n];
+      // Nodes in [2^j, 2^(j+1)) only read nodes at or past 2^(j+1), so the
+      // levels are filled bottom up and the cells of one level are independent.
+      for (int level = Integer.highestOneBit(Math.max(n - 1, 1)); level > 0; level >>= 1) {
+         int from = level;
+         int to = Math.min(n, 2 * level);
+         IntStream cells = IntStream.range(from, to);
+         if (parallel) {
+            cells = cells.parallel();
+         }
+         cells.forEach(i -> tree[i] = heavier(node(2 * i), node(2 * i + 1)));
+      }
+   }
+
+	/**
+	 * Returns the index of the largest weight in weights[low .. high].
+	 */
+   public int maxOf(int low, int high) {
+      int best = -1;
+      int l = low + n;
+      int r = high + n + 1;
+      while (l < r) {
+         if ((l & 1) == 1) {
+            best = best < 0 ? node(l) : heavier(best, node(l));
+            l++;
+         }
+         if ((r & 1) == 1) {
+            r--;
+            best = best < 0 ? node(r) : heavier(best, node(r));
+         }
+         l >>= 1;
+         r >>= 1;
+      }
+      return best;
+   }
+
+	/**
+	 * Returns the indices of the k largest weights in weights[low .. high],
+	 * in descending order of weight, in O(k log n) time.
+	 */
+   public int[] topIndices(int low, int high, int k) {
+      return topIndices(Collections.singletonList(new int[] {low, high}), k);
+   }
+
+	/**
+	 * Returns the indices of the k largest weights across the given disjoint
+	 * {low, high} ranges, in descending order of weight.
+	 */
+   public int[] topIndices(List<int[]> ranges, int k) {
+      long total = 0;
+      for (int[] range : ranges) {
+         total += 1 + range[1] - range[0];
+      }
+      int size = (int) Math.min(k, total);
+      int[] top = new int[size];
+      if (size == 0) {
+         return top;
+      }
+      // Each entry is {low, high, index of the max in [low, high]}.
+      // Popping a range yields its max and splits the rest in two.
+      PriorityQueue<int[]> pq = new PriorityQueue<int[]>(2 * size + ranges.size(),
+         (a, b) -> heavier(a[2], b[2]) == a[2] ? -1 : 1);
+      for (int[] range : ranges) {
+         pq.add(new int[] {range[0], range[1], maxOf(range[0], range[1])});
+      }
+      for (int i = 0; i < size; i++) {
+         int[] r = pq.remove();
+         int max = r[2];
+         top[i] = max;
+         if (r[0] < max) {
+            pq.add(new int[] {r[0], max - 1, maxOf(r[0], max - 1)});
+         }
+         if (max < r[1]) {
+            pq.add(new int[] {max + 1, r[1], maxOf(max + 1, r[1])});
+         }
+      }
+      return top;
+   }
+
+	/**
+	 * Returns an estimate, in bytes, of the heap used by the table, not
+	 * counting the weights array.
+	 */
+   public long memoryFootprint() {
+      return 16 + 4L * tree.length;
+   }
+
+   private int node(int i) {
+      return i >= n ? i - n : tree[i];
+   }
+
+   private int heavier(int i, int j) {
+      if (weights[i] != weights[j]) {
+         return weights[i] > weights[j] ? i : j;
+      }
+      return Math.min(i, j);
+   }
+}
@@ -0,0 +1,220 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Stores sorted terms as primitive arrays instead of Term objects: every
+ * query is packed into one arena addressed by an int[] offsets table, with
+ * a parallel long[] of weights. Term objects are created only for the
+ * results of a query.
+ *
+ * Like the JDK's compact strings, the arena is a byte[] holding one byte
+ * per character when every query is Latin-1, and a char[] otherwise.
+ */
+public final class PackedTermStore {
+   private final byte[] latin1;
+   private final char[] chars;
+   private final int[] offsets;
+   private final long[] weights;
+   private final MaxWeightTable maxWeight;
+
+	/**
+	 * Packs terms, which must already be sorted in ascending lexicographic
+	 * order of query.
+	 */
+   public PackedTermStore(Term[] sorted) {
+      this(sorted, false);
+   }
+
+	/**
+	 * Packs terms, which must already be sorted in ascending lexicographic
+	 * order of query, building the weight index in parallel if requested.
+	 */
+   public PackedTermStore(Term[] sorted, boolean parallel) {
+      int n = sorted.length;
+      offsets = new int[n + 1];
+      weights = new long[n];
+      long total = 0;
+      boolean narrow = true;
+      for (int i = 0; i < n; i++) {
+         String query = sorted[i].getQuery();
+         total += query.length();
+         for (int c = 0; c < query.length() && narrow; c++) {
+            narrow = query.charAt(c) <= 0xFF;
+         }
+      }
+      if (total > Integer.MAX_VALUE) {
+         throw new IllegalArgumentException("queries too large to pack");
+      }
+      latin1 = narrow ? new byte[(int) total] : null;
+      chars = narrow ? null : new char[(int) total];
+      int offset = 0;
+      for (int i = 0; i < n; i++) {
+         offsets[i] = offset;
+         offset += sorted[i].getQuery().length();
+      }
+      offsets[n] = offset;
+      // Every term writes its own slice of the arena, so the copy can be split.
+      IntStream indices = IntStream.range(0, n);
+      if (parallel) {
+         indices = indices.parallel();
+      }
+      indices.forEach(i -> {
+         String query = sorted[i].getQuery();
+         if (latin1 != null) {
+            int start = offsets[i];
+            for (int c = 0; c < query.length(); c++) {
+               latin1[start + c] = (byte) query.charAt(c);
+            }
+         }
+         else {
+            query.getChars(0, query.length(), chars, offsets[i]);
+         }
+         weights[i] = sorted[i].getWeight();
+      });
+      maxWeight = new MaxWeightTable(weights, parallel);
+   }
+
+	/**
+	 * Returns all terms that start with the given prefix, in descending order
+	 * of weight.
+	 */
+   public Term[] allMatches(String prefix) {
+      int[] range = matchRange(prefix);
+      if (range == null) {
+         return new Term[0];
+      }
+      Term[] matches = new Term[1 + range[1] - range[0]];
+      for (int i = 0; i < matches.length; i++) {
+         matches[i] = termAt(range[0] + i);
+      }
+      Arrays.sort(matches, Term.byDescendingWeightOrder());
+      return matches;
+   }
+
+	/**
+	 * Returns the k heaviest terms that start with the given prefix, in
+	 * descending order of weight.
+	 */
+   public Term[] topMatches(String prefix, int k) {
+      int[] range = matchRange(prefix);
+      if (range == null) {
+         return new Term[0];
+      }
+      int[] top = maxWeight.topIndices(range[0], range[1], k);
+      Term[] matches = new Term[top.length];
+      for (int i = 0; i < top.length; i++) {
+         matches[i] = termAt(top[i]);
+      }
+      return matches;
+   }
+
+	/**
+	 * Returns the k heaviest terms that start with a string within maxEdits
+	 * edits of the given prefix, in descending order of weight.
+	 */
+   public Term[] fuzzyMatches(String prefix, int maxEdits, int k) {
+      FuzzyRanges.Queries queries = new FuzzyRanges.Queries() {
+         public int size() {
+            return weights.length;
+         }
+      
+         public int length(int index) {
+            return offsets[index + 1] - offsets[index];
+         }
+      
+         public char charAt(int index, int position) {
+            int i = offsets[index] + position;
+            return latin1 != null ? (char) (latin1[i] & 0xFF) : chars[i];
+         }
+      };
+      int[] top = maxWeight.topIndices(FuzzyRanges.find(queries, prefix, maxEdits), k);
+      Term[] matches = new Term[top.length];
+      for (int i = 0; i < top.length; i++) {
+         matches[i] = termAt(top[i]);
+      }
+      return matches;
+   }
+
+	/**
+	 * Returns every term in ascending lexicographic order of query.
+	 */
+   Term[] sortedTerms() {
+      Term[] terms = new Term[weights.length];
+      for (int i = 0; i < terms.length; i++) {
+         terms[i] = termAt(i);
+      }
+      return terms;
+   }
+
+	/**
+	 * Returns an estimate, in bytes, of the heap used by this store.
+	 */
+   public long memoryFootprint() {
+      long arena = latin1 != null ? latin1.length : 2L * chars.length;
+      return 3 * 16 + arena + 4L * offsets.length + 8L * weights.length
+         + maxWeight.memoryFootprint();
+   }
+
+   /**
+    * Returns {first, last} index of the queries starting with prefix, or
+    * null if there are none.
+    */
+   private int[] matchRange(String prefix) {
+      int first = lowerBound(prefix, 0, 0);
+      if (first == weights.length || comparePrefix(prefix, first) != 0) {
+         return null;
+      }
+      return new int[] {first, lowerBound(prefix, first, -1) - 1};
+   }
+
+   /**
+    * Returns the first index in [from, size) whose query, cut to the
+    * prefix's length, is not below prefix when limit is 0, or is above it
+    * when limit is -1. The loop runs a fixed ceil(log2 n) times and only
+    * moves base, so the JIT can use a conditional move instead of a branch.
+    * The comparison is a direct call on the arena rather than a comparator.
+    */
+   private int lowerBound(String prefix, int from, int limit) {
+      int n = weights.length - from;
+      if (n == 0) {
+         return from;
+      }
+      int base = from;
+      while (n > 1) {
+         int half = n >>> 1;
+         base = comparePrefix(prefix, base + half - 1) > limit ? base + half : base;
+         n -= half;
+      }
+      return comparePrefix(prefix, base) > limit ? base + 1 : base;
+   }
+
+   /**
+    * Compares prefix against the first prefix.length() characters of the
+    * query at index.
+    */
+   private int comparePrefix(String prefix, int index) {
+      int start = offsets[index];
+      int length = offsets[index + 1] - start;
+      int n = Math.min(prefix.length(), length);
+      for (int i = 0; i < n; i++) {
+         char a = prefix.charAt(i);
+         char b = latin1 != null ? (char) (latin1[start + i] & 0xFF) : chars[start + i];
+         if (a != b) {
+            return a - b;
+         }
+      }
+      return prefix.length() <= length ? 0 : 1;
+   }
+
+   private Term termAt(int index) {
+      int start = offsets[index];
+      int length = offsets[index + 1] - start;
+      String query = latin1 != null
+         ? new String(latin1, start, length, StandardCharsets.ISO_8859_1)
+         : new String(chars, start, length);
+      return new Term(query, weights[index]);
+   }
+}
@@ -0,0 +1,27 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+/**
+ * Receives one call for every allMatches or topMatches query answered by an
+ * Autocomplete it is attached to; each prefix of a batchMatches call counts
+ * as an allMatches query. Calls come from the querying threads, so
+ * implementations must be thread-safe.
+ */
+public interface QueryListener {
+   /** The k reported for allMatches queries. */
+   int ALL = -1;
+
+   /** The comparisons reported by engines that do not count them. */
+   int NOT_COUNTED = -1;
+
+   /**
+    * Called after a query finishes.
+    *
+    * @param prefix the prefix that was queried
+    * @param k the number of terms asked for, or ALL for allMatches
+    * @param matched the number of terms returned
+    * @param comparisons the comparator calls made by the binary search,
+    *     or NOT_COUNTED
+    * @param nanos the time the query took, in nanoseconds
+    */
+   void onQuery(String prefix, int k, int matched, int comparisons, long nanos);
+}
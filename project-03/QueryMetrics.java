@@ -0,0 +1,164 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A QueryListener that records query counts, matched terms, comparator
+ * calls and a latency histogram, and publishes them over JMX.
+ *
+ * The histogram works like HdrHistogram: values are grouped by their
+ * highest set bit, and each power of two is split into SUB_BUCKETS linear
+ * buckets, so every recorded latency is kept to within about 3% using a
+ * fixed array of counters and no allocation per query.
+ */
+public final class QueryMetrics implements QueryListener, QueryMetricsMBean {
+   private static final int SUB_BITS = 5;
+   private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+   private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong matched = new AtomicLong();
+   private final AtomicLong comparisons = new AtomicLong();
+   private final AtomicLong max = new AtomicLong();
+   private volatile CachingAutocomplete cache;
+
+	/**
+	 * Reports the statistics of the given cache alongside the query
+	 * metrics, or stops reporting them if cache is null.
+	 */
+   public void setCache(CachingAutocomplete cache) {
+      this.cache = cache;
+   }
+
+	/**
+	 * Registers this object with the platform MBean server under the given
+	 * object name, such as "autocomplete:type=QueryMetrics".
+	 */
+   public void register(String objectName) throws JMException {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName));
+   }
+
+   @Override
+   public void onQuery(String prefix, int k, int matchedTerms, int comparatorCalls, long nanos) {
+      count.incrementAndGet();
+      matched.addAndGet(matchedTerms);
+      if (comparatorCalls != NOT_COUNTED) {
+         comparisons.addAndGet(comparatorCalls);
+      }
+      buckets.incrementAndGet(bucketOf(Math.max(0, nanos)));
+      long m = max.get();
+      while (nanos > m && !max.compareAndSet(m, nanos)) {
+         m = max.get();
+      }
+   }
+
+	/**
+	 * Returns the latency, in nanoseconds, below which the given fraction of
+	 * queries fall, for a fraction between 0 and 1.
+	 */
+   public long latencyPercentile(double fraction) {
+      long total = count.get();
+      if (total == 0) {
+         return 0;
+      }
+      long rank = (long) Math.ceil(fraction * total);
+      long seen = 0;
+      for (int i = 0; i < buckets.length(); i++) {
+         seen += buckets.get(i);
+         if (seen >= Math.max(1, rank)) {
+            return Math.min(upperBoundOf(i), max.get());
+         }
+      }
+      return max.get();
+   }
+
+   @Override
+   public long getQueryCount() {
+      return count.get();
+   }
+
+   @Override
+   public long getMatchedTerms() {
+      return matched.get();
+   }
+
+   @Override
+   public long getComparisons() {
+      return comparisons.get();
+   }
+
+   @Override
+   public long getLatencyP50Nanos() {
+      return latencyPercentile(0.5);
+   }
+
+   @Override
+   public long getLatencyP99Nanos() {
+      return latencyPercentile(0.99);
+   }
+
+   @Override
+   public long getLatencyP999Nanos() {
+      return latencyPercentile(0.999);
+   }
+
+   @Override
+   public long getLatencyMaxNanos() {
+      return max.get();
+   }
+
+   @Override
+   public long getCacheHits() {
+      CachingAutocomplete c = cache;
+      return c == null ? 0 : c.hitCount();
+   }
+
+   @Override
+   public long getCacheMisses() {
+      CachingAutocomplete c = cache;
+      return c == null ? 0 : c.missCount();
+   }
+
+   @Override
+   public long getCacheEvictions() {
+      CachingAutocomplete c = cache;
+      return c == null ? 0 : c.evictionCount();
+   }
+
+   @Override
+   public void reset() {
+      for (int i = 0; i < buckets.length(); i++) {
+         buckets.set(i, 0);
+      }
+      count.set(0);
+      matched.set(0);
+      comparisons.set(0);
+      max.set(0);
+   }
+
+   /**
+    * Values below SUB_BUCKETS get a bucket each; larger values share a
+    * bucket with others that have the same top SUB_BITS + 1 bits.
+    */
+   private static int bucketOf(long value) {
+      if (value < SUB_BUCKETS) {
+         return (int) value;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+      int sub = (int) (value >>> exponent) - SUB_BUCKETS;
+      return (exponent + 1) * SUB_BUCKETS + sub;
+   }
+
+   private static long upperBoundOf(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+         return bucket;
+      }
+      int exponent = bucket / SUB_BUCKETS - 1;
+      long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+      return ((sub + 1) << exponent) - 1;
+   }
+}
@@ -0,0 +1,39 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+/**
+ * The JMX view of QueryMetrics.
+ */
+public interface QueryMetricsMBean {
+   /** Returns the number of queries recorded. */
+   long getQueryCount();
+
+   /** Returns the total number of terms returned by all queries. */
+   long getMatchedTerms();
+
+   /** Returns the total number of comparator calls counted. */
+   long getComparisons();
+
+   /** Returns the median query latency, in nanoseconds. */
+   long getLatencyP50Nanos();
+
+   /** Returns the 99th percentile query latency, in nanoseconds. */
+   long getLatencyP99Nanos();
+
+   /** Returns the 99.9th percentile query latency, in nanoseconds. */
+   long getLatencyP999Nanos();
+
+   /** Returns the slowest query latency, in nanoseconds. */
+   long getLatencyMaxNanos();
+
+   /** Returns the cache hit count, or 0 if no cache is attached. */
+   long getCacheHits();
+
+   /** Returns the cache miss count, or 0 if no cache is attached. */
+   long getCacheMisses();
+
+   /** Returns the cache eviction count, or 0 if no cache is attached. */
+   long getCacheEvictions();
+
+   /** Clears every recorded value. */
+   void reset();
+}
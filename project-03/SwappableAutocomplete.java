@@ -0,0 +1,134 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current Autocomplete index for many reader threads and lets a
+ * finished rebuild replace it in one atomic step. Readers never lock: each
+ * query reads the current index once and runs entirely against it, so a
+ * swap in the middle of a query does not mix results from two indexes.
+ */
+public final class SwappableAutocomplete {
+   private final AtomicReference<Autocomplete> current;
+
+	/**
+	 * Initializes the holder with the given index. This method throws a
+	 * NullPointerException if index is null.
+	 */
+   public SwappableAutocomplete(Autocomplete index) {
+      if (index == null) throw new NullPointerException("null");
+      current = new AtomicReference<Autocomplete>(index);
+   }
+
+	/**
+	 * Returns the index currently being served.
+	 */
+   public Autocomplete get() {
+      return current.get();
+   }
+
+	/**
+	 * Publishes a new index and returns the one it replaced. Queries already
+	 * running finish against the old index. This method throws a
+	 * NullPointerException if index is null.
+	 */
+   public Autocomplete swap(Autocomplete index) {
+      if (index == null) throw new NullPointerException("null");
+      return current.getAndSet(index);
+   }
+
+	/**
+	 * Builds a new index from terms on the calling thread, without blocking
+	 * readers, then publishes it. Returns the index it replaced.
+	 */
+   public Autocomplete rebuild(Term[] terms, Autocomplete.Engine engine, boolean parallel) {
+      return swap(new Autocomplete(terms, engine, parallel));
+   }
+
+	/**
+	 * Returns all terms that start with the given prefix, in descending order
+	 * of weight, from the current index.
+	 */
+   public Term[] allMatches(String prefix) {
+      return current.get().allMatches(prefix);
+   }
+
+	/**
+	 * Returns the k heaviest terms that start with the given prefix, in
+	 * descending order of weight, from the current index.
+	 */
+   public Term[] topMatches(String prefix, int k) {
+      return current.get().topMatches(prefix, k);
+   }
+
+	/**
+	 * Prints the topMatches throughput, in queries per second, of a
+	 * SwappableAutocomplete and of a CachingAutocomplete in front of it, at
+	 * 1, 8, 32 and 128 reader threads. Prefixes are drawn from the terms'
+	 * own queries. Readers share nothing but the index, so throughput should
+	 * grow with the thread count until the cores are used up.
+	 * Usage: java SwappableAutocomplete terms.txt [seconds]
+	 */
+   public static void main(String[] args) throws IOException, InterruptedException {
+      if (args.length < 1) {
+         System.err.println("usage: java SwappableAutocomplete terms.txt [seconds]");
+         System.exit(1);
+      }
+      Term[] terms = TermLoader.load(args[0]);
+      long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+      Random random = new Random(1);
+      String[] prefixes = new String[1 << 16];
+      for (int i = 0; i < prefixes.length; i++) {
+         String query = terms[random.nextInt(terms.length)].getQuery();
+         prefixes[i] = query.substring(0, Math.min(query.length(), 1 + random.nextInt(4)));
+      }
+      SwappableAutocomplete swappable = new SwappableAutocomplete(new Autocomplete(terms));
+      CachingAutocomplete caching = new CachingAutocomplete(swappable, 10000);
+      // One untimed round first, so the JIT has compiled the query paths.
+      throughput(1, seconds, prefixes, p -> swappable.topMatches(p, 10));
+      throughput(1, seconds, prefixes, p -> caching.topMatches(p, 10));
+      System.out.println("threads  swappable q/s  caching q/s");
+      for (int threads : new int[] {1, 8, 32, 128}) {
+         long plain = throughput(threads, seconds, prefixes, p -> swappable.topMatches(p, 10));
+         long cached = throughput(threads, seconds, prefixes, p -> caching.topMatches(p, 10));
+         System.out.printf("%7d  %13d  %11d%n", threads, plain, cached);
+      }
+   }
+
+   /**
+    * Runs query on prefixes from the given number of threads for the given
+    * time and returns the queries answered per second.
+    */
+   private static long throughput(int threads, long seconds, final String[] prefixes,
+                                  final Consumer<String> query)
+                                  throws InterruptedException {
+      final AtomicBoolean done = new AtomicBoolean(false);
+      final LongAdder queries = new LongAdder();
+      Thread[] readers = new Thread[threads];
+      for (int t = 0; t < threads; t++) {
+         final int start = t * 7919;
+         readers[t] = new Thread(() -> {
+            int i = start;
+            while (!done.get()) {
+               query.accept(prefixes[i++ & (prefixes.length - 1)]);
+               queries.increment();
+            }
+         });
+      }
+      long begin = System.nanoTime();
+      for (Thread r : readers) {
+         r.start();
+      }
+      Thread.sleep(1000 * seconds);
+      done.set(true);
+      for (Thread r : readers) {
+         r.join();
+      }
+      return queries.sum() * 1000000000L / (System.nanoTime() - begin);
+   }
+}
@@ -0,0 +1,300 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Reads term files made of "weight<TAB>query" lines. Files are read in
+ * large blocks through a FileChannel and split into lines by hand, and
+ * weights are parsed straight from the bytes, so the only object made per
+ * line is the query String.
+ *
+ * buildDictionary sorts files larger than the heap with an external merge
+ * sort: sorted runs of a bounded number of terms are spilled to temporary
+ * files and then merged into a MappedTermDictionary file.
+ */
+public final class TermLoader {
+   private static final int BLOCK_SIZE = 1 << 16;
+
+   /**
+    * Receives each parsed line.
+    */
+   private interface TermSink {
+      void accept(Term term) throws IOException;
+   }
+
+   private TermLoader() {
+   }
+
+	/**
+	 * Returns every term in the given file, in file order. Blank lines and
+	 * lines holding only a number (such as a count header) are skipped. This
+	 * method throws a NullPointerException if fileName is null, and an
+	 * IllegalArgumentException if a line does not start with a weight and a tab
+	 * or its weight does not fit in a long.
+	 */
+   public static Term[] load(String fileName) throws IOException {
+      if (fileName == null) throw new NullPointerException("null");
+      final ArrayList<Term> terms = new ArrayList<Term>();
+      parse(fileName, term -> terms.add(term));
+      return terms.toArray(new Term[0]);
+   }
+
+	/**
+	 * Sorts the terms in input and writes them to output in the
+	 * MappedTermDictionary format, keeping at most termsPerRun terms on the
+	 * heap at once. Returns the number of terms written.
+	 *
+	 * A dictionary is mapped as one buffer, so its file is limited to 2GB:
+	 * 12 bytes per term plus the UTF-8 bytes of every query. Input that would
+	 * go past that is rejected while the runs are being written, before the
+	 * merge starts.
+	 *
+	 * This method throws a NullPointerException if input or output is null,
+	 * and an IllegalArgumentException if termsPerRun is less than 1, a line
+	 * is malformed, or the dictionary would be larger than 2GB.
+	 */
+   public static int buildDictionary(String input, String output, int termsPerRun) throws IOException {
+      if (input == null || output == null) throw new NullPointerException("null");
+      if (termsPerRun < 1) throw new IllegalArgumentException("termsPerRun < 1");
+   
+      final ArrayList<File> runs = new ArrayList<File>();
+      final ArrayList<Term> run = new ArrayList<Term>();
+      final int[] count = new int[1];
+      // Bytes the dictionary file will take, starting with its header and
+      // the offset that ends the last query.
+      final long[] fileSize = {12};
+      try {
+         parse(input, term -> {
+            run.add(term);
+            count[0]++;
+            if (run.size() == termsPerRun) {
+               runs.add(spill(run, fileSize));
+               run.clear();
+            }
+         });
+         if (!run.isEmpty()) {
+            runs.add(spill(run, fileSize));
+            run.clear();
+         }
+         merge(runs, count[0], output);
+      }
+      finally {
+         for (File f : runs) {
+            f.delete();
+         }
+      }
+      return count[0];
+   }
+
+   private static void parse(String fileName, TermSink sink) throws IOException {
+      try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+           FileChannel channel = file.getChannel()) {
+         ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+         byte[] line = new byte[256];
+         int length = 0;
+         while (channel.read(block) != -1) {
+            block.flip();
+            while (block.hasRemaining()) {
+               byte b = block.get();
+               if (b == '\n') {
+                  parseLine(line, length, sink);
+                  length = 0;
+               }
+               else {
+                  if (length == line.length) {
+                     line = Arrays.copyOf(line, 2 * length);
+                  }
+                  line[length++] = b;
+               }
+            }
+            block.clear();
+         }
+         if (length > 0) {
+            parseLine(line, length, sink);
+         }
+      }
+   }
+
+   private static void parseLine(byte[] line, int length, TermSink sink) throws IOException {
+      if (length > 0 && line[length - 1] == '\r') {
+         length--;
+      }
+      int i = 0;
+      while (i < length && (line[i] == ' ' || line[i] == '\t')) {
+         i++;
+      }
+      int digits = i;
+      long weight = 0;
+      while (i < length && line[i] >= '0' && line[i] <= '9') {
+         int digit = line[i] - '0';
+         if (weight > (Long.MAX_VALUE - digit) / 10) {
+            throw badWeight(line, length);
+         }
+         weight = 10 * weight + digit;
+         i++;
+      }
+      if (i == length) {
+         return;
+      }
+      if (i == digits || line[i] != '\t') {
+         throw badWeight(line, length);
+      }
+      i++;
+      sink.accept(new Term(new String(line, i, length - i, StandardCharsets.UTF_8), weight));
+   }
+
+   private static IllegalArgumentException badWeight(byte[] line, int length) {
+      return new IllegalArgumentException("bad weight: "
+         + new String(line, 0, length, StandardCharsets.UTF_8));
+   }
+
+   /**
+    * Writes one sorted run to a temporary file, adding the space its terms
+    * take in the dictionary to fileSize[0].
+    */
+   private static File spill(ArrayList<Term> run, long[] fileSize) throws IOException {
+      Term[] sorted = run.toArray(new Term[0]);
+      Arrays.sort(sorted);
+      File f = File.createTempFile("terms", ".run");
+      try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(f), BLOCK_SIZE))) {
+         for (Term t : sorted) {
+            byte[] query = t.getQuery().getBytes(StandardCharsets.UTF_8);
+            // An offset and a weight, then the query's bytes.
+            fileSize[0] += 12 + query.length;
+            if (fileSize[0] > Integer.MAX_VALUE) {
+               throw new IllegalArgumentException("dictionary larger than 2GB");
+            }
+            out.writeInt(query.length);
+            out.write(query);
+            out.writeLong(t.getWeight());
+         }
+      }
+      catch (IOException | IllegalArgumentException e) {
+         f.delete();
+         throw e;
+      }
+      return f;
+   }
+
+   /**
+    * Merges sorted runs into the dictionary format. The offsets, weights and
+    * query bytes sections are streamed to separate temporary files, then
+    * appended behind the header.
+    */
+   private static void merge(ArrayList<File> runs, int count, String output) throws IOException {
+      File offsets = File.createTempFile("terms", ".offsets");
+      File weights = File.createTempFile("terms", ".weights");
+      File bytes = File.createTempFile("terms", ".bytes");
+      PriorityQueue<RunReader> pq = new PriorityQueue<RunReader>();
+      try {
+         try (DataOutputStream offsetOut = new DataOutputStream(
+                  new BufferedOutputStream(new FileOutputStream(offsets), BLOCK_SIZE));
+              DataOutputStream weightOut = new DataOutputStream(
+                  new BufferedOutputStream(new FileOutputStream(weights), BLOCK_SIZE));
+              BufferedOutputStream byteOut =
+                  new BufferedOutputStream(new FileOutputStream(bytes), BLOCK_SIZE)) {
+            for (File f : runs) {
+               RunReader r = new RunReader(f);
+               if (r.advance()) {
+                  pq.add(r);
+               }
+               else {
+                  r.close();
+               }
+            }
+            // buildDictionary has checked that the whole file fits in 2GB,
+            // so every offset fits in an int.
+            int offset = 0;
+            offsetOut.writeInt(offset);
+            while (!pq.isEmpty()) {
+               RunReader r = pq.remove();
+               byteOut.write(r.query);
+               offset += r.query.length;
+               offsetOut.writeInt(offset);
+               weightOut.writeLong(r.weight);
+               if (r.advance()) {
+                  pq.add(r);
+               }
+               else {
+                  r.close();
+               }
+            }
+         }
+      
+         try (FileOutputStream out = new FileOutputStream(output);
+              FileChannel channel = out.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            header.putInt(MappedTermDictionary.MAGIC).putInt(count).flip();
+            channel.write(header);
+            for (File f : new File[] {offsets, weights, bytes}) {
+               try (FileInputStream in = new FileInputStream(f);
+                    FileChannel section = in.getChannel()) {
+                  long position = 0;
+                  while (position < section.size()) {
+                     position += section.transferTo(position, section.size() - position, channel);
+                  }
+               }
+            }
+         }
+      }
+      finally {
+         for (RunReader r : pq) {
+            r.close();
+         }
+         offsets.delete();
+         weights.delete();
+         bytes.delete();
+      }
+   }
+
+   /**
+    * Reads one sorted run, ordered by its current query in the same
+    * byte order used by MappedTermDictionary.
+    */
+   private static final class RunReader implements Comparable<RunReader> {
+      private final DataInputStream in;
+      byte[] query;
+      long weight;
+   
+      RunReader(File f) throws IOException {
+         in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), BLOCK_SIZE));
+      }
+   
+      boolean advance() throws IOException {
+         try {
+            query = new byte[in.readInt()];
+         }
+         catch (EOFException e) {
+            return false;
+         }
+         in.readFully(query);
+         weight = in.readLong();
+         return true;
+      }
+   
+      void close() throws IOException {
+         in.close();
+      }
+   
+      @Override
+      public int compareTo(RunReader other) {
+         return Arrays.compareUnsigned(query, other.query);
+      }
+   }
+}
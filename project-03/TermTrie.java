@@ -0,0 +1,418 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A compact radix trie over a set of terms. Chains of single-child nodes
+ * are merged, so each node's edge carries a label of one or more
+ * characters, and a trie over n distinct queries has at most 2n nodes.
+ *
+ * Nodes are numbered in preorder and stored in parallel arrays rather than
+ * as objects. A node's first child is the next node and end[node] is where
+ * its subtree stops, so the next sibling of c is end[c]. Edge labels are
+ * packed back to back in one arena, one byte per character when every
+ * query is Latin-1. Each node records its heaviest term so top-k searches
+ * can skip light subtrees. Only nodes that end a term carry term data:
+ * they are marked in a bitset, and their rank among marked nodes is the
+ * index of their query in sorted order.
+ */
+public final class TermTrie {
+   private static final int NONE = -1;
+
+   private final byte[] latin1;
+   private final char[] chars;
+   // Node i's label is arena[labelStart[i] .. labelStart[i + 1]).
+   private final int[] labelStart;
+   private final int[] end;
+   // Index into weights of the heaviest term in the subtree.
+   private final int[] maxTerm;
+   private final long[] terminal;
+   // Number of terminal nodes before each 64-node block of the bitset.
+   private final int[] terminalRank;
+   // The weights of distinct query t are weights[termStart[t] .. termStart[t + 1]).
+   private final int[] termStart;
+   private final long[] weights;
+   private final int nodes;
+
+	/**
+	 * Builds a trie from terms, which must already be sorted in ascending
+	 * lexicographic order of query.
+	 */
+   public TermTrie(Term[] sorted) {
+      Builder b = new Builder(sorted);
+      latin1 = b.latin1 == null ? null : Arrays.copyOf(b.latin1, b.arenaLength);
+      chars = b.chars == null ? null : Arrays.copyOf(b.chars, b.arenaLength);
+      labelStart = Arrays.copyOf(b.labelStart, b.nodes + 1);
+      end = Arrays.copyOf(b.end, b.nodes);
+      maxTerm = Arrays.copyOf(b.maxTerm, b.nodes);
+      terminal = Arrays.copyOf(b.terminal, (b.nodes + 63) >>> 6);
+      terminalRank = new int[terminal.length];
+      for (int i = 1; i < terminal.length; i++) {
+         terminalRank[i] = terminalRank[i - 1] + Long.bitCount(terminal[i - 1]);
+      }
+      termStart = b.termStart;
+      weights = b.weights;
+      nodes = b.nodes;
+   }
+
+	/**
+	 * Returns all terms that start with the given prefix, in descending order
+	 * of weight.
+	 */
+   public Term[] allMatches(String prefix) {
+      StringBuilder query = new StringBuilder();
+      int node = find(prefix, query);
+      if (node == NONE) {
+         return new Term[0];
+      }
+      ArrayList<Term> matches = new ArrayList<Term>();
+      collect(node, query, matches);
+      Term[] result = matches.toArray(new Term[0]);
+      Arrays.sort(result, Term.byDescendingWeightOrder());
+      return result;
+   }
+
+	/**
+	 * Returns the k heaviest terms that start with the given prefix, in
+	 * descending order of weight. Subtrees are visited heaviest first, so
+	 * only subtrees that can still contribute to the result are expanded.
+	 */
+   public Term[] topMatches(String prefix, int k) {
+      StringBuilder query = new StringBuilder();
+      int node = find(prefix, query);
+      if (node == NONE || k == 0 || weights.length == 0) {
+         return new Term[0];
+      }
+      PriorityQueue<Entry> pq = new PriorityQueue<Entry>();
+      pq.add(new Entry(weights[maxTerm[node]], node, query.toString(), false));
+      return heaviest(pq, k);
+   }
+
+	/**
+	 * Returns the k heaviest terms whose query starts with some string within
+	 * maxEdits insertions, deletions or substitutions of prefix, in descending
+	 * order of weight.
+	 *
+	 * The trie is walked with one row of the Levenshtein table per character,
+	 * which acts as a Levenshtein automaton: a subtree is dropped as soon as
+	 * every entry of its row exceeds maxEdits, and a node whose last entry is
+	 * within maxEdits matches together with its whole subtree.
+	 */
+   public Term[] fuzzyMatches(String prefix, int maxEdits, int k) {
+      PriorityQueue<Entry> pq = new PriorityQueue<Entry>();
+      if (weights.length == 0) {
+         return new Term[0];
+      }
+      int[] row = new int[prefix.length() + 1];
+      for (int j = 0; j < row.length; j++) {
+         row[j] = j;
+      }
+      if (row[prefix.length()] <= maxEdits) {
+         pq.add(new Entry(weights[maxTerm[0]], 0, "", false));
+      }
+      else {
+         fuzzySearch(0, new StringBuilder(), row, prefix, maxEdits, pq);
+      }
+      return heaviest(pq, k);
+   }
+
+   private void fuzzySearch(int node, StringBuilder query, int[] previous,
+                            String prefix, int maxEdits, PriorityQueue<Entry> pq) {
+      int m = prefix.length();
+      int length = query.length();
+      for (int c = node + 1; c < end[node]; c = end[c]) {
+         int[] row = previous;
+         boolean matched = false;
+         boolean dead = false;
+         for (int p = labelStart[c]; p < labelStart[c + 1] && !matched && !dead; p++) {
+            char ch = charAt(p);
+            int[] next = new int[m + 1];
+            next[0] = row[0] + 1;
+            int min = next[0];
+            for (int j = 1; j <= m; j++) {
+               int substitute = row[j - 1] + (prefix.charAt(j - 1) == ch ? 0 : 1);
+               next[j] = Math.min(substitute, Math.min(next[j - 1], row[j]) + 1);
+               min = Math.min(min, next[j]);
+            }
+            row = next;
+            matched = row[m] <= maxEdits;
+            dead = min > maxEdits;
+         }
+         appendLabel(query, c);
+         if (matched) {
+            pq.add(new Entry(weights[maxTerm[c]], c, query.toString(), false));
+         }
+         else if (!dead) {
+            fuzzySearch(c, query, row, prefix, maxEdits, pq);
+         }
+         query.setLength(length);
+      }
+   }
+
+   /**
+    * Expands the subtrees in pq heaviest first until k terms are found.
+    */
+   private Term[] heaviest(PriorityQueue<Entry> pq, int k) {
+      ArrayList<Term> matches = new ArrayList<Term>();
+      StringBuilder query = new StringBuilder();
+      while (!pq.isEmpty() && matches.size() < k) {
+         Entry e = pq.remove();
+         if (e.isTerm) {
+            matches.add(new Term(e.query, e.weight));
+            continue;
+         }
+         if (isTerminal(e.node)) {
+            int t = rank(e.node);
+            for (int w = termStart[t]; w < termStart[t + 1]; w++) {
+               pq.add(new Entry(weights[w], e.node, e.query, true));
+            }
+         }
+         for (int c = e.node + 1; c < end[e.node]; c = end[c]) {
+            query.setLength(0);
+            appendLabel(query.append(e.query), c);
+            pq.add(new Entry(weights[maxTerm[c]], c, query.toString(), false));
+         }
+      }
+      return matches.toArray(new Term[0]);
+   }
+
+	/**
+	 * Returns every term in ascending lexicographic order of query, which is
+	 * the order a preorder walk visits them in.
+	 */
+   Term[] sortedTerms() {
+      ArrayList<Term> terms = new ArrayList<Term>(weights.length);
+      collect(0, new StringBuilder(), terms);
+      return terms.toArray(new Term[0]);
+   }
+
+	/**
+	 * Returns the number of trie nodes.
+	 */
+   public int size() {
+      return nodes;
+   }
+
+	/**
+	 * Returns an estimate, in bytes, of the heap used by this trie.
+	 */
+   public long memoryFootprint() {
+      long arena = latin1 != null ? latin1.length : 2L * chars.length;
+      return 16 * 9 + arena
+         + 4L * (labelStart.length + end.length + maxTerm.length
+            + terminalRank.length + termStart.length)
+         + 8L * (terminal.length + weights.length);
+   }
+
+   /**
+    * Returns the node whose path is the shortest one starting with prefix,
+    * appending that path to query, or NONE if no query starts with prefix.
+    * The path can be longer than prefix when prefix ends inside a label.
+    */
+   private int find(String prefix, StringBuilder query) {
+      int node = 0;
+      int i = 0;
+      while (i < prefix.length()) {
+         int next = NONE;
+         for (int c = node + 1; c < end[node] && next == NONE; c = end[c]) {
+            if (charAt(labelStart[c]) == prefix.charAt(i)) {
+               next = c;
+            }
+         }
+         if (next == NONE) {
+            return NONE;
+         }
+         for (int p = labelStart[next]; p < labelStart[next + 1] && i < prefix.length(); p++, i++) {
+            if (charAt(p) != prefix.charAt(i)) {
+               return NONE;
+            }
+         }
+         appendLabel(query, next);
+         node = next;
+      }
+      return node;
+   }
+
+   private void collect(int node, StringBuilder query, ArrayList<Term> matches) {
+      if (isTerminal(node)) {
+         int t = rank(node);
+         for (int w = termStart[t]; w < termStart[t + 1]; w++) {
+            matches.add(new Term(query.toString(), weights[w]));
+         }
+      }
+      int length = query.length();
+      for (int c = node + 1; c < end[node]; c = end[c]) {
+         appendLabel(query, c);
+         collect(c, query, matches);
+         query.setLength(length);
+      }
+   }
+
+   private char charAt(int p) {
+      return latin1 != null ? (char) (latin1[p] & 0xFF) : chars[p];
+   }
+
+   private void appendLabel(StringBuilder query, int node) {
+      for (int p = labelStart[node]; p < labelStart[node + 1]; p++) {
+         query.append(charAt(p));
+      }
+   }
+
+   private boolean isTerminal(int node) {
+      return (terminal[node >>> 6] & (1L << node)) != 0;
+   }
+
+   /**
+    * Returns the number of terminal nodes before node.
+    */
+   private int rank(int node) {
+      return terminalRank[node >>> 6] + Long.bitCount(terminal[node >>> 6] & ((1L << node) - 1));
+   }
+
+   /**
+    * Holds the growing arrays while the trie is built, so that the trie's
+    * own fields can be final.
+    */
+   private static final class Builder {
+      private final String[] queries;
+      private final int[] termStart;
+      private final long[] weights;
+      private final byte[] latin1;
+      private final char[] chars;
+      private final int[] labelStart;
+      private final int[] end;
+      private final int[] maxTerm;
+      private final long[] terminal;
+      private int arenaLength;
+      private int nodes;
+   
+      Builder(Term[] sorted) {
+         // Collapse duplicate queries, which are adjacent in sorted order.
+         int distinct = 0;
+         for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || !sorted[i].getQuery().equals(sorted[i - 1].getQuery())) {
+               distinct++;
+            }
+         }
+         queries = new String[distinct];
+         termStart = new int[distinct + 1];
+         weights = new long[sorted.length];
+         long total = 0;
+         boolean narrow = true;
+         int t = 0;
+         for (int i = 0; i < sorted.length; i++) {
+            String query = sorted[i].getQuery();
+            weights[i] = sorted[i].getWeight();
+            if (i == 0 || !query.equals(queries[t - 1])) {
+               queries[t] = query;
+               termStart[t++] = i;
+               total += query.length();
+               for (int c = 0; c < query.length() && narrow; c++) {
+                  narrow = query.charAt(c) <= 0xFF;
+               }
+            }
+         }
+         termStart[distinct] = sorted.length;
+         if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("queries too large for a trie");
+         }
+         latin1 = narrow ? new byte[(int) total] : null;
+         chars = narrow ? null : new char[(int) total];
+         int capacity = 2 * distinct + 1;
+         labelStart = new int[capacity + 1];
+         end = new int[capacity];
+         maxTerm = new int[capacity];
+         terminal = new long[(capacity + 63) >>> 6];
+         build(0, distinct, 0, true);
+         labelStart[nodes] = arenaLength;
+      }
+   
+      /**
+       * Adds the node for queries[lo .. hi), which all share their first
+       * depth characters, and its subtree. Its label runs from depth to the
+       * end of the queries' common prefix; the root's label is empty.
+       */
+      private int build(int lo, int hi, int depth, boolean root) {
+         int node = nodes++;
+         int common = root ? depth : commonPrefix(queries[lo], queries[hi - 1], depth);
+         labelStart[node] = arenaLength;
+         for (int c = depth; c < common; c++) {
+            if (latin1 != null) {
+               latin1[arenaLength++] = (byte) queries[lo].charAt(c);
+            }
+            else {
+               chars[arenaLength++] = queries[lo].charAt(c);
+            }
+         }
+         int heaviest = NONE;
+         // A query equal to the common prefix sorts first and ends here.
+         if (lo < hi && queries[lo].length() == common) {
+            terminal[node >>> 6] |= 1L << node;
+            for (int w = termStart[lo]; w < termStart[lo + 1]; w++) {
+               heaviest = heavier(heaviest, w);
+            }
+            lo++;
+         }
+         while (lo < hi) {
+            char c = queries[lo].charAt(common);
+            int next = lo + 1;
+            while (next < hi && queries[next].charAt(common) == c) {
+               next++;
+            }
+            int child = build(lo, next, common, false);
+            heaviest = heavier(heaviest, maxTerm[child]);
+            lo = next;
+         }
+         end[node] = nodes;
+         maxTerm[node] = heaviest;
+         return node;
+      }
+   
+      private int heavier(int i, int j) {
+         if (i == NONE || j == NONE) {
+            return Math.max(i, j);
+         }
+         if (weights[i] != weights[j]) {
+            return weights[i] > weights[j] ? i : j;
+         }
+         return Math.min(i, j);
+      }
+   
+      private static int commonPrefix(String a, String b, int from) {
+         int n = Math.min(a.length(), b.length());
+         int i = from;
+         while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+         }
+         return i;
+      }
+   }
+
+   private static class Entry implements Comparable<Entry> {
+      long weight;
+      int node;
+      String query;
+      boolean isTerm;
+   
+      Entry(long weight, int node, String query, boolean isTerm) {
+         this.weight = weight;
+         this.node = node;
+         this.query = query;
+         this.isTerm = isTerm;
+      }
+   
+      @Override
+      public int compareTo(Entry other) {
+         if (weight != other.weight) {
+            return weight > other.weight ? -1 : 1;
+         }
+         // A finished term beats a subtree of the same weight.
+         if (isTerm != other.isTerm) {
+            return isTerm ? -1 : 1;
+         }
+         return 0;
+      }
+   }
+}
@@ -0,0 +1,373 @@
+//@Author Sathvik Prahadeeswaran srp0061@auburn.edu
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An Autocomplete index that accepts updates while serving queries.
+ *
+ * Updates go into a small sorted delta that is merged over an immutable
+ * Autocomplete base at query time. When the delta grows past a threshold
+ * it is frozen and a background thread compacts it into a new base; a new
+ * empty delta takes further writes in the meantime. Compaction merges the
+ * base's sorted terms with the sorted delta in one linear pass. Queries
+ * read one published snapshot of (base, frozen delta, active delta), so
+ * they never wait for a rebuild. The active delta keeps taking writes while
+ * a query runs, so each query first copies the delta entries under its
+ * prefix and answers from that copy: an update is then either fully
+ * applied or not applied at all, never half of each.
+ *
+ * Each query string is treated as a key: upsert replaces every term with
+ * that query, and remove deletes them all.
+ */
+public final class UpdatableAutocomplete {
+   private static final long REMOVED = -1;
+   private static final int DEFAULT_COMPACT_THRESHOLD = 10000;
+
+   private final Autocomplete.Engine engine;
+   private final int compactThreshold;
+   private final boolean parallel;
+   // One permit, held for the whole of a compaction. A background
+   // compaction releases it from its worker thread.
+   private final Semaphore compacting = new Semaphore(1);
+   private volatile Snapshot snapshot;
+   // Entries in snapshot.active. Guarded by this.
+   private int activeCount;
+
+	/**
+	 * Initializes an updatable index from the given array of terms.
+	 * This method throws a NullPointerException if terms is null.
+	 */
+   public UpdatableAutocomplete(Term[] terms) {
+      this(terms, Autocomplete.Engine.SORTED_ARRAY, DEFAULT_COMPACT_THRESHOLD);
+   }
+
+	/**
+	 * Initializes an updatable index from the given array of terms, building
+	 * each base with the given engine and compacting once the delta holds
+	 * compactThreshold entries. This method throws a NullPointerException if
+	 * terms or engine is null, and an IllegalArgumentException if
+	 * compactThreshold is less than 1.
+	 */
+   public UpdatableAutocomplete(Term[] terms, Autocomplete.Engine engine, int compactThreshold) {
+      this(terms, engine, compactThreshold, false);
+   }
+
+	/**
+	 * Initializes an updatable index as above. If parallel is true, the first
+	 * base and every compacted base are built on the common fork-join pool.
+	 * This method throws a NullPointerException if terms or engine is null,
+	 * and an IllegalArgumentException if compactThreshold is less than 1.
+	 */
+   public UpdatableAutocomplete(Term[] terms, Autocomplete.Engine engine, int compactThreshold,
+                                boolean parallel) {
+      if (terms == null || engine == null) {
+         throw new NullPointerException("null");
+      }
+      if (compactThreshold < 1) {
+         throw new IllegalArgumentException("compactThreshold < 1");
+      }
+      this.engine = engine;
+      this.compactThreshold = compactThreshold;
+      this.parallel = parallel;
+      snapshot = new Snapshot(new Autocomplete(terms, engine, parallel), null,
+         new ConcurrentSkipListMap<String, Long>());
+   }
+
+	/**
+	 * Sets the weight of query, adding it if it is not present. This method
+	 * throws a NullPointerException if query is null, and an
+	 * IllegalArgumentException if weight is negative.
+	 */
+   public void upsert(String query, long weight) {
+      if (query == null) throw new NullPointerException("null");
+      if (weight < 0) throw new IllegalArgumentException("Weight <= 0");
+      write(query, weight);
+   }
+
+	/**
+	 * Removes every term with the given query. This method throws a
+	 * NullPointerException if query is null.
+	 */
+   public void remove(String query) {
+      if (query == null) throw new NullPointerException("null");
+      write(query, REMOVED);
+   }
+
+	/**
+	 * Returns all terms that start with the given prefix, in descending order of weight.
+	 * This method throws a NullPointerException if prefix is null.
+	 */
+   public Term[] allMatches(String prefix) {
+      if (prefix == null) throw new NullPointerException("null");
+      Snapshot s = snapshot;
+      HashMap<String, Long> delta = s.deltaFor(prefix);
+      ArrayList<Term> matches = new ArrayList<Term>();
+      for (Term t : s.base.allMatches(prefix)) {
+         if (!delta.containsKey(t.getQuery())) {
+            matches.add(t);
+         }
+      }
+      addLive(delta, matches);
+      Term[] result = matches.toArray(new Term[0]);
+      Arrays.sort(result, Term.byDescendingWeightOrder());
+      return result;
+   }
+
+	/**
+	 * Returns the k heaviest terms that start with the given prefix, in
+	 * descending order of weight. This method throws a NullPointerException if
+	 * prefix is null, and an IllegalArgumentException if k is negative.
+	 */
+   public Term[] topMatches(String prefix, int k) {
+      if (prefix == null) throw new NullPointerException("null");
+      if (k < 0) throw new IllegalArgumentException("k < 0");
+      Snapshot s = snapshot;
+      HashMap<String, Long> delta = s.deltaFor(prefix);
+      ArrayList<Term> matches = new ArrayList<Term>();
+      addLive(delta, matches);
+      int deltaCount = matches.size();
+   
+      // Overridden base terms are dropped, so ask the base for extra terms
+      // and widen the request until k survivors are found or the base runs
+      // out. The request is capped so that it cannot overflow.
+      int request = (int) Math.min(Integer.MAX_VALUE, (long) k + delta.size());
+      while (true) {
+         Term[] top = s.base.topMatches(prefix, request);
+         int kept = 0;
+         for (Term t : top) {
+            if (!delta.containsKey(t.getQuery())) {
+               matches.add(t);
+               kept++;
+            }
+         }
+         if (kept >= k || top.length < request || request == Integer.MAX_VALUE) {
+            break;
+         }
+         matches.subList(deltaCount, matches.size()).clear();
+         request = (int) Math.min(Integer.MAX_VALUE, 2L * request);
+      }
+   
+      Term[] result = matches.toArray(new Term[0]);
+      Arrays.sort(result, Term.byDescendingWeightOrder());
+      return Arrays.copyOf(result, Math.min(k, result.length));
+   }
+
+	/**
+	 * Folds all pending updates into a new base index on the calling thread.
+	 */
+   public void compact() {
+      // Waits, without spinning, for a background compaction to finish.
+      compacting.acquireUninterruptibly();
+      try {
+         Snapshot frozen = freeze();
+         Autocomplete base = rebuild(frozen);
+         publish(base);
+      }
+      finally {
+         compacting.release();
+      }
+   }
+
+   private synchronized void write(String query, long weight) {
+      if (snapshot.active.put(query, weight) == null) {
+         activeCount++;
+      }
+      if (activeCount >= compactThreshold && compacting.tryAcquire()) {
+         final Snapshot frozen = freeze();
+         Thread worker = new Thread(() -> {
+            try {
+               publish(rebuild(frozen));
+            }
+            finally {
+               compacting.release();
+            }
+         }, "autocomplete-compaction");
+         worker.setDaemon(true);
+         worker.start();
+      }
+   }
+
+   /**
+    * Moves the active delta behind a fresh empty one, so it can be merged
+    * into the base while writes continue. A frozen delta is still present
+    * only if an earlier compaction failed; its updates are carried over,
+    * with the newer active entries winning. Callers must hold the
+    * compacting permit.
+    */
+   private synchronized Snapshot freeze() {
+      Snapshot s = snapshot;
+      ConcurrentSkipListMap<String, Long> frozen = s.active;
+      if (s.frozen != null) {
+         frozen = new ConcurrentSkipListMap<String, Long>(s.frozen);
+         frozen.putAll(s.active);
+      }
+      snapshot = new Snapshot(s.base, frozen, new ConcurrentSkipListMap<String, Long>());
+      activeCount = 0;
+      return snapshot;
+   }
+
+   /**
+    * Merges the base's terms with the frozen delta. Both are sorted by
+    * query, so the merged terms come out sorted and the new base skips its
+    * sort.
+    */
+   private Autocomplete rebuild(Snapshot frozen) {
+      Term[] base = frozen.base.sortedTerms();
+      ArrayList<Term> terms = new ArrayList<Term>(base.length + frozen.frozen.size());
+      Iterator<Map.Entry<String, Long>> updates = frozen.frozen.entrySet().iterator();
+      Map.Entry<String, Long> update = updates.hasNext() ? updates.next() : null;
+      for (Term t : base) {
+         while (update != null && update.getKey().compareTo(t.getQuery()) < 0) {
+            addUpdate(update, terms);
+            update = updates.hasNext() ? updates.next() : null;
+         }
+         // Base terms whose query was updated or removed are dropped.
+         if (update == null || !update.getKey().equals(t.getQuery())) {
+            terms.add(t);
+         }
+      }
+      while (update != null) {
+         addUpdate(update, terms);
+         update = updates.hasNext() ? updates.next() : null;
+      }
+      return Autocomplete.ofSorted(terms.toArray(new Term[0]), engine, parallel);
+   }
+
+   /**
+    * Adds the delta terms that were not removed.
+    */
+   private static void addLive(HashMap<String, Long> delta, ArrayList<Term> matches) {
+      for (Map.Entry<String, Long> e : delta.entrySet()) {
+         if (e.getValue() != REMOVED) {
+            matches.add(new Term(e.getKey(), e.getValue()));
+         }
+      }
+   }
+
+   private static void addUpdate(Map.Entry<String, Long> update, ArrayList<Term> terms) {
+      if (update.getValue() != REMOVED) {
+         terms.add(new Term(update.getKey(), update.getValue()));
+      }
+   }
+
+   private synchronized void publish(Autocomplete base) {
+      snapshot = new Snapshot(base, null, snapshot.active);
+   }
+
+	/**
+	 * Checks that queries stay consistent while updates stream in: one thread
+	 * keeps reweighting existing queries, compacting as it goes, while the
+	 * others run allMatches and topMatches, and every result must hold each
+	 * query exactly once. Exits with status 1 if any result does not.
+	 * Usage: java UpdatableAutocomplete [seconds]
+	 */
+   public static void main(String[] args) throws InterruptedException {
+      final int size = 20000;
+      Term[] terms = new Term[size];
+      for (int i = 0; i < size; i++) {
+         terms[i] = new Term("k" + i, i);
+      }
+      final UpdatableAutocomplete index =
+         new UpdatableAutocomplete(terms, Autocomplete.Engine.SORTED_ARRAY, 5000);
+      long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+      final AtomicBoolean done = new AtomicBoolean(false);
+      final AtomicInteger queries = new AtomicInteger();
+      final AtomicInteger failures = new AtomicInteger();
+   
+      Thread[] threads = new Thread[4];
+      threads[0] = new Thread(() -> {
+         Random random = new Random(1);
+         while (!done.get()) {
+            index.upsert("k" + random.nextInt(size), random.nextInt(1000000));
+         }
+      });
+      for (int i = 1; i < threads.length; i++) {
+         threads[i] = new Thread(() -> {
+            while (!done.get()) {
+               if (distinct(index.allMatches("k")) != size
+                     || distinct(index.topMatches("k1", 5)) != 5) {
+                  failures.incrementAndGet();
+               }
+               queries.incrementAndGet();
+            }
+         });
+      }
+      for (Thread t : threads) {
+         t.start();
+      }
+      Thread.sleep(1000 * seconds);
+      done.set(true);
+      for (Thread t : threads) {
+         t.join();
+      }
+      System.out.println(queries.get() + " query pairs, " + failures.get() + " inconsistent");
+      if (failures.get() > 0) {
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Returns the number of distinct queries in matches, or -1 if some query
+    * appears more than once.
+    */
+   private static int distinct(Term[] matches) {
+      HashSet<String> queries = new HashSet<String>();
+      for (Term t : matches) {
+         if (!queries.add(t.getQuery())) {
+            return -1;
+         }
+      }
+      return queries.size();
+   }
+
+   /**
+    * An immutable view of the index. Only the active delta is written to,
+    * and every write to it is a single atomic map update.
+    */
+   private static final class Snapshot {
+      final Autocomplete base;
+      final ConcurrentSkipListMap<String, Long> frozen;
+      final ConcurrentSkipListMap<String, Long> active;
+   
+      Snapshot(Autocomplete base, ConcurrentSkipListMap<String, Long> frozen,
+               ConcurrentSkipListMap<String, Long> active) {
+         this.base = base;
+         this.frozen = frozen;
+         this.active = active;
+      }
+   
+      /**
+       * Copies the delta entries whose query starts with prefix, active
+       * entries winning over frozen ones. Each key of the live active delta
+       * is read exactly once, so the copy holds one value per query.
+       */
+      HashMap<String, Long> deltaFor(String prefix) {
+         HashMap<String, Long> delta = new HashMap<String, Long>();
+         if (frozen != null) {
+            copyPrefix(frozen, prefix, delta);
+         }
+         copyPrefix(active, prefix, delta);
+         return delta;
+      }
+   
+      private static void copyPrefix(ConcurrentSkipListMap<String, Long> from, String prefix,
+                                     HashMap<String, Long> to) {
+         for (Map.Entry<String, Long> e : from.tailMap(prefix).entrySet()) {
+            if (!e.getKey().startsWith(prefix)) {
+               break;
+            }
+            to.put(e.getKey(), e.getValue());
+         }
+      }
+   }
+}
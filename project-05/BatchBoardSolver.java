@@ -0,0 +1,104 @@
+import java.util.List;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves and rates many WordHunt boards at once, for puzzle generators
+ * that try lots of candidate boards and keep the good ones.
+ *
+ * Boards are solved in parallel on the common fork-join pool. Each pool
+ * thread keeps one BoardSolver and reuses it for every board it is given,
+ * so boards of the same size are solved without allocating new search
+ * state. The lexicon is shared read-only by all threads.
+ *
+ * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
+ */
+public final class BatchBoardSolver {
+   private final int minimumWordLength;
+   private final ThreadLocal<BoardSolver> solvers;
+
+   /**
+    * Creates a batch solver.
+    *
+    * @param lexicon the lexicon to find words in
+    * @param minimumWordLength the minimum number of characters per word
+    * @throws IllegalArgumentException if lexicon is null or
+    *     minimumWordLength < 1
+    */
+   public BatchBoardSolver(Lexicon lexicon, int minimumWordLength) {
+      if (lexicon == null) {
+         throw new IllegalArgumentException("lexicon is null");
+      }
+      if (minimumWordLength < 1) {
+         throw new IllegalArgumentException();
+      }
+      this.minimumWordLength = minimumWordLength;
+      solvers = ThreadLocal.withInitial(() -> new BoardSolver(lexicon));
+   }
+
+   /**
+    * Solves every board in the stream and returns one rating per board, in
+    * stream order.
+    *
+    * @param boards boards in row-major order, as passed to setBoard
+    * @return the rating of each board
+    * @throws IllegalArgumentException if a board is null or not square
+    */
+   public List<Rating> rate(Stream<String[]> boards) {
+      return boards.parallel().map(this::rate).collect(Collectors.toList());
+   }
+
+   /**
+    * Solves one board on the calling thread.
+    *
+    * @param board the board in row-major order
+    * @return the board's rating
+    * @throws IllegalArgumentException if board is null or not square
+    */
+   public Rating rate(String[] board) {
+      BoardSolver solver = solvers.get();
+      solver.setBoard(board);
+      SortedSet<String> words = solver.solve(minimumWordLength);
+      int score = 0;
+      for (String word : words) {
+         score += word.length() - minimumWordLength + 1;
+      }
+      return new Rating(board, words.size(), score);
+   }
+
+   /**
+    * The result of solving one board.
+    */
+   public static final class Rating {
+      private final String[] board;
+      private final int wordCount;
+      private final int maxScore;
+   
+      Rating(String[] board, int wordCount, int maxScore) {
+         this.board = board;
+         this.wordCount = wordCount;
+         this.maxScore = maxScore;
+      }
+   
+      /** Returns the board that was rated. */
+      public String[] getBoard() {
+         return board;
+      }
+   
+      /** Returns the number of scorable words on the board. */
+      public int getWordCount() {
+         return wordCount;
+      }
+   
+      /** Returns the score earned by finding every scorable word. */
+      public int getMaxScore() {
+         return maxScore;
+      }
+   
+      @Override
+      public String toString() {
+         return wordCount + " words, " + maxScore + " points";
+      }
+   }
+}
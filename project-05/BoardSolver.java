@@ -0,0 +1,511 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Finds every lexicon word on a square WordHunt board.
+ *
+ * The search is a depth-first walk kept on explicit int stacks rather than
+ * in recursive calls. Neighbours come from an adjacency table computed
+ * once per board size, visited tiles are flags toggled in place, and the
+ * current word lives in one reusable char buffer. Once a board is set,
+ * the only allocation is the String made for each word found. Setting
+ * another board of the same size reuses every array.
+ *
+ * Boards of up to 64 tiles (8x8) are searched as bitboards: the visited
+ * tiles are the bits of one long, each tile's neighbours are a precomputed
+ * long mask, and the neighbours still to try at each depth are a mask from
+ * which the lowest bit is taken, so checking and marking tiles are single
+ * bit operations.
+ *
+ * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
+ */
+public final class BoardSolver {
+   private final Lexicon lexicon;
+
+   private int side;
+   private int tiles;
+   private char[][] tileText;
+   private char[][] tileUpper;
+   private int[][] adjacent;
+   private boolean[] visited;
+   private boolean bitboard;
+   private long[] neighbours;
+   private long visitedBits;
+
+   // DFS state: path[0 .. depth] are the tiles on the current path. For
+   // each depth, cursor is the lexicon cursor after that tile, length is
+   // the word length after that tile, and next (or remaining, on a
+   // bitboard) says which neighbours of that tile are still to be tried.
+   private int[] path;
+   private int[] cursor;
+   private int[] length;
+   private int[] next;
+   private long[] remaining;
+   private char[] word;
+   private int[] tracePath;
+   private HashMap<Character, int[]> tilesByFirstChar;
+   private HashMap<String, int[]> paths;
+   private int depth;
+   private int start;
+   private int end;
+   private int minimumWordLength;
+
+   /**
+    * Creates a solver that looks words up in the given lexicon.
+    *
+    * @param lexicon the lexicon to search
+    * @throws IllegalArgumentException if lexicon is null
+    */
+   public BoardSolver(Lexicon lexicon) {
+      if (lexicon == null) {
+         throw new IllegalArgumentException("lexicon is null");
+      }
+      this.lexicon = lexicon;
+      side = 0;
+      tiles = 0;
+      word = new char[16];
+   }
+
+   /**
+    * Creates a solver for the same board as other, with its own search
+    * state, that looks words up in the given lexicon. The board arrays are
+    * shared, so other's board must not change while this solver is in use.
+    */
+   private BoardSolver(BoardSolver other, Lexicon lexicon) {
+      this.lexicon = lexicon;
+      side = other.side;
+      tiles = other.tiles;
+      tileText = other.tileText;
+      tileUpper = other.tileUpper;
+      adjacent = other.adjacent;
+      visited = new boolean[tiles];
+      bitboard = other.bitboard;
+      neighbours = other.neighbours;
+      remaining = new long[tiles];
+      path = new int[tiles];
+      cursor = new int[tiles];
+      length = new int[tiles];
+      next = new int[tiles];
+      word = new char[other.word.length];
+   }
+
+   /**
+    * Sets the board to search.
+    *
+    * @param letterArray the tiles in row-major order
+    * @throws IllegalArgumentException if letterArray is null or not square
+    */
+   public void setBoard(String[] letterArray) {
+      if (letterArray == null) {
+         throw new IllegalArgumentException("Array is null");
+      }
+      int n = (int) Math.sqrt(letterArray.length);
+      if (n * n != letterArray.length) {
+         throw new IllegalArgumentException("board is not square");
+      }
+      for (String tile : letterArray) {
+         if (tile == null) {
+            throw new IllegalArgumentException("tile is null");
+         }
+      }
+      if (n != side) {
+         side = n;
+         tiles = n * n;
+         tileText = new char[tiles][];
+         tileUpper = new char[tiles][];
+         adjacent = adjacency(n);
+         visited = new boolean[tiles];
+         bitboard = tiles <= 64;
+         neighbours = bitboard ? neighbourMasks(adjacent) : null;
+         remaining = new long[tiles];
+         path = new int[tiles];
+         cursor = new int[tiles];
+         length = new int[tiles];
+         next = new int[tiles];
+         tracePath = new int[tiles];
+      }
+      int total = 0;
+      for (int t = 0; t < tiles; t++) {
+         tileText[t] = letterArray[t].toCharArray();
+         tileUpper[t] = letterArray[t].toUpperCase().toCharArray();
+         total += tileText[t].length;
+      }
+      if (total > word.length) {
+         word = new char[total];
+      }
+      // Built on first use by findPath, so plain solving never pays for them.
+      tilesByFirstChar = null;
+      if (paths != null) {
+         paths.clear();
+      }
+   }
+
+   /**
+    * Returns every word of at least minimumWordLength characters that is in
+    * the lexicon and can be traced on the board.
+    *
+    * @param minimumWordLength the minimum word length
+    * @return the words found, in sorted order
+    */
+   public SortedSet<String> solve(int minimumWordLength) {
+      SortedSet<String> words = new TreeSet<String>();
+      solve(minimumWordLength, 0, tiles, words);
+      return words;
+   }
+
+   /**
+    * Same as solve, but the searches starting from different tiles run on
+    * the common fork-join pool. Each worker has its own visited flags and
+    * stacks and adds into one concurrent set, so the only shared state is
+    * the read-only board and lexicon.
+    *
+    * @param minimumWordLength the minimum word length
+    * @return the words found, in sorted order
+    */
+   public SortedSet<String> solveParallel(int minimumWordLength) {
+      final Set<String> words = new ConcurrentSkipListSet<String>();
+      int chunks = Math.min(tiles, 4 * ForkJoinPool.getCommonPoolParallelism());
+      final int chunkSize = chunks == 0 ? 1 : (tiles + chunks - 1) / chunks;
+      IntStream.range(0, chunks).parallel().forEach(chunk -> {
+         BoardSolver worker = new BoardSolver(this, lexicon);
+         int from = chunk * chunkSize;
+         worker.solve(minimumWordLength, from, Math.min(tiles, from + chunkSize), words);
+      });
+      return new TreeSet<String>(words);
+   }
+
+   /**
+    * Hands each scorable word to visitor as soon as it is found, together
+    * with its path, stopping early if visitor returns false. Nothing is
+    * collected, so asking whether a board has at least n words costs only
+    * the search up to the nth word.
+    *
+    * @param minimumWordLength the minimum word length
+    * @param distinct whether to skip words already visited by another path
+    * @param visitor receives the words
+    * @return the number of words visited
+    */
+   public int visit(int minimumWordLength, boolean distinct, WordVisitor visitor) {
+      // Search on a copy so the visitor may call findPath on this solver.
+      BoardSolver worker = new BoardSolver(this, lexicon);
+      Set<String> seen = distinct ? new HashSet<String>() : null;
+      int visits = 0;
+      worker.reset(minimumWordLength, 0, tiles);
+      while (worker.advance()) {
+         String found = new String(worker.word, 0, worker.length[worker.depth]);
+         if (seen != null && !seen.add(found)) {
+            continue;
+         }
+         visits++;
+         if (!visitor.visit(found, worker.currentPath())) {
+            break;
+         }
+      }
+      return visits;
+   }
+
+   /**
+    * Returns the scorable words as a lazy stream in the order the search
+    * finds them, each word once. The board is only searched as far as the
+    * stream is consumed, so limit, findFirst and anyMatch stop the search
+    * early. The stream has its own search state but reads this solver's
+    * board, so it should be used up before the board changes.
+    *
+    * @param minimumWordLength the minimum word length
+    * @return the words found, unsorted
+    */
+   public Stream<String> stream(int minimumWordLength) {
+      final BoardSolver worker = new BoardSolver(this, lexicon);
+      worker.reset(minimumWordLength, 0, tiles);
+      final Set<String> seen = new HashSet<String>();
+      int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+      Spliterator<String> words = new Spliterators.AbstractSpliterator<String>(Long.MAX_VALUE, characteristics) {
+         public boolean tryAdvance(Consumer<? super String> action) {
+            while (worker.advance()) {
+               String found = new String(worker.word, 0, worker.length[worker.depth]);
+               if (seen.add(found)) {
+                  action.accept(found);
+                  return true;
+               }
+            }
+            return false;
+         }
+      };
+      return StreamSupport.stream(words, false);
+   }
+
+   /**
+    * Returns the scorable words that are both on the board and in the given
+    * lexicon, searching the board once. Checking a list of candidate words
+    * this way shares the work for words with a common prefix.
+    *
+    * @param within the words to look for
+    * @param minimumWordLength the minimum word length
+    * @return the words found, in sorted order
+    */
+   public SortedSet<String> solve(Lexicon within, int minimumWordLength) {
+      return new BoardSolver(this, within).solve(minimumWordLength);
+   }
+
+   /**
+    * Returns a path of tiles spelling word, ignoring case, as row-major tile
+    * indexes, or an empty list if word is not on the board. Paths are
+    * remembered until the board changes, so asking again is a map lookup.
+    *
+    * @param word the word to trace
+    * @return the path, or an empty list
+    */
+   public List<Integer> findPath(String word) {
+      String upper = word.toUpperCase();
+      if (paths == null) {
+         paths = new HashMap<String, int[]>();
+      }
+      int[] found = paths.get(upper);
+      if (found == null) {
+         found = trace(upper);
+         paths.put(upper, found);
+      }
+      List<Integer> path = new ArrayList<Integer>(found.length);
+      for (int tile : found) {
+         path.add(tile);
+      }
+      return path;
+   }
+
+   private int[] trace(String word) {
+      if (word.isEmpty()) {
+         return new int[0];
+      }
+      if (tilesByFirstChar == null) {
+         indexTiles();
+      }
+      int[] starts = tilesByFirstChar.get(word.charAt(0));
+      if (starts == null) {
+         return new int[0];
+      }
+      for (int tile : starts) {
+         int last = trace(word, tile, 0, 0);
+         if (last >= 0) {
+            return Arrays.copyOf(tracePath, last + 1);
+         }
+      }
+      return new int[0];
+   }
+
+   /**
+    * Tries to spell word[pos ..] starting with tile at step d of the path.
+    * Returns the index of the path's last step, or -1 if it cannot be done.
+    */
+   private int trace(String word, int tile, int pos, int d) {
+      char[] letters = tileUpper[tile];
+      if (letters.length == 0 || pos + letters.length > word.length()) {
+         return -1;
+      }
+      for (int i = 0; i < letters.length; i++) {
+         if (word.charAt(pos + i) != letters[i]) {
+            return -1;
+         }
+      }
+      tracePath[d] = tile;
+      int end = pos + letters.length;
+      if (end == word.length()) {
+         return d;
+      }
+      visited[tile] = true;
+      int last = -1;
+      for (int i = 0; i < adjacent[tile].length && last < 0; i++) {
+         int nb = adjacent[tile][i];
+         if (!visited[nb]) {
+            last = trace(word, nb, end, d + 1);
+         }
+      }
+      visited[tile] = false;
+      return last;
+   }
+
+   private void indexTiles() {
+      HashMap<Character, List<Integer>> byChar = new HashMap<Character, List<Integer>>();
+      for (int t = 0; t < tiles; t++) {
+         if (tileUpper[t].length > 0) {
+            byChar.computeIfAbsent(tileUpper[t][0], c -> new ArrayList<Integer>()).add(t);
+         }
+      }
+      tilesByFirstChar = new HashMap<Character, int[]>();
+      for (Map.Entry<Character, List<Integer>> e : byChar.entrySet()) {
+         int[] list = new int[e.getValue().size()];
+         for (int i = 0; i < list.length; i++) {
+            list[i] = e.getValue().get(i);
+         }
+         tilesByFirstChar.put(e.getKey(), list);
+      }
+   }
+
+   /**
+    * Adds to words every scorable word whose path starts on a tile in
+    * [from, to).
+    */
+   private void solve(int min, int from, int to, Set<String> words) {
+      reset(min, from, to);
+      while (advance()) {
+         words.add(new String(word, 0, length[depth]));
+      }
+   }
+
+   private List<Integer> currentPath() {
+      List<Integer> steps = new ArrayList<Integer>(depth + 1);
+      for (int d = 0; d <= depth; d++) {
+         steps.add(path[d]);
+      }
+      return steps;
+   }
+
+   private void reset(int min, int from, int to) {
+      minimumWordLength = min;
+      depth = -1;
+      start = from;
+      end = to;
+      visitedBits = 0;
+      for (int t = 0; t < tiles; t++) {
+         visited[t] = false;
+      }
+   }
+
+   /**
+    * Moves the search to the next path that spells a scorable word.
+    *
+    * @return true if one was found, false when the search is finished
+    */
+   private boolean advance() {
+      while (true) {
+         int tile;
+         int from;
+         if (depth < 0) {
+            if (start >= end) {
+               return false;
+            }
+            tile = start++;
+            from = lexicon.root();
+         }
+         else if (bitboard) {
+            long left = remaining[depth];
+            if (left == 0) {
+               pop();
+               continue;
+            }
+            tile = Long.numberOfTrailingZeros(left);
+            remaining[depth] = left & (left - 1);
+            from = cursor[depth];
+         }
+         else {
+            int top = path[depth];
+            if (next[depth] == adjacent[top].length) {
+               pop();
+               continue;
+            }
+            tile = adjacent[top][next[depth]++];
+            if (visited[tile]) {
+               continue;
+            }
+            from = cursor[depth];
+         }
+         int to = step(from, tile);
+         if (to == Lexicon.NONE) {
+            continue;
+         }
+         push(tile, to);
+         if (lexicon.isWord(to) && length[depth] >= minimumWordLength) {
+            return true;
+         }
+      }
+   }
+
+   private int step(int from, int tile) {
+      char[] letters = tileUpper[tile];
+      for (int i = 0; i < letters.length && from != Lexicon.NONE; i++) {
+         from = lexicon.step(from, letters[i]);
+      }
+      return from;
+   }
+
+   private void push(int tile, int to) {
+      int offset = depth < 0 ? 0 : length[depth];
+      char[] letters = tileText[tile];
+      System.arraycopy(letters, 0, word, offset, letters.length);
+      depth++;
+      path[depth] = tile;
+      cursor[depth] = to;
+      length[depth] = offset + letters.length;
+      if (bitboard) {
+         // Tiles visited deeper down are cleared again before we return
+         // here, so the mask computed now stays correct.
+         visitedBits |= 1L << tile;
+         remaining[depth] = neighbours[tile] & ~visitedBits;
+      }
+      else {
+         next[depth] = 0;
+         visited[tile] = true;
+      }
+   }
+
+   private void pop() {
+      if (bitboard) {
+         visitedBits &= ~(1L << path[depth]);
+      }
+      else {
+         visited[path[depth]] = false;
+      }
+      depth--;
+   }
+
+   /**
+    * Returns, for each tile, a mask with a bit set for every neighbour.
+    */
+   private static long[] neighbourMasks(int[][] adj) {
+      long[] masks = new long[adj.length];
+      for (int t = 0; t < adj.length; t++) {
+         for (int nb : adj[t]) {
+            masks[t] |= 1L << nb;
+         }
+      }
+      return masks;
+   }
+
+   /**
+    * Returns, for each tile of an n x n board, the tiles around it.
+    */
+   private static int[][] adjacency(int n) {
+      int[][] adj = new int[n * n][];
+      int[] buffer = new int[8];
+      for (int row = 0; row < n; row++) {
+         for (int col = 0; col < n; col++) {
+            int count = 0;
+            for (int i = -1; i <= 1; i++) {
+               for (int j = -1; j <= 1; j++) {
+                  int r = row + i;
+                  int c = col + j;
+                  if ((i != 0 || j != 0) && r >= 0 && r < n && c >= 0 && c < n) {
+                     buffer[count++] = r * n + c;
+                  }
+               }
+            }
+            adj[row * n + col] = Arrays.copyOf(buffer, count);
+         }
+      }
+      return adj;
+   }
+}
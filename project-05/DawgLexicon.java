@@ -0,0 +1,226 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A lexicon stored as a minimal DAWG (directed acyclic word graph): a trie
+ * in which identical subtrees are stored once, so shared suffixes such as
+ * "-ING" and "-NESS" cost nothing extra.
+ *
+ * The graph is a flat array of edges packed into longs. The edges leaving
+ * a node are stored next to each other, and each edge records its
+ * character, whether it ends a word, whether it is the last edge of its
+ * node, and where the target node's edges start. A cursor is the index of
+ * the edge just taken; edge 0 leads into the root.
+ *
+ * A DAWG can be written to a binary file and later loaded with a memory
+ * mapping. Loading parses nothing, and the edges live outside the heap in
+ * pages the operating system shares between every process and game that
+ * maps the same file. A DawgLexicon never changes and is safe to share
+ * between threads.
+ *
+ * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
+ */
+public final class DawgLexicon implements Lexicon {
+   private static final int MAGIC = 0x44415747;
+   private static final int HEADER_BYTES = 16;
+   private static final long LAST = 1L << 16;
+   private static final long TERMINAL = 1L << 17;
+
+   private final LongBuffer edges;
+   private final int words;
+
+   private DawgLexicon(LongBuffer edges, int words) {
+      this.edges = edges;
+      this.words = words;
+   }
+
+   /**
+    * Builds a minimal DAWG holding the same words as the given trie.
+    *
+    * @param trie the words to store
+    * @return the DAWG
+    */
+   public static DawgLexicon build(TrieLexicon trie) {
+      // Give every trie node the id of the first node seen with the same
+      // outgoing edges, working bottom up so children are numbered first.
+      HashMap<String, Integer> ids = new HashMap<String, Integer>();
+      List<Integer> representative = new ArrayList<Integer>();
+      int[] canonical = new int[trie.nodeCount()];
+      number(trie, trie.root(), ids, representative, canonical);
+   
+      // Lay out each distinct node's edges. Index 0 is the edge into the root.
+      int[] start = new int[representative.size()];
+      int count = 1;
+      for (int id = 0; id < representative.size(); id++) {
+         int edgesOut = 0;
+         for (int c = trie.firstChild(representative.get(id)); c != NONE; c = trie.nextSibling(c)) {
+            edgesOut++;
+         }
+         start[id] = edgesOut == 0 ? 0 : count;
+         count += edgesOut;
+      }
+      long[] packed = new long[count];
+      packed[0] = pack('\0', trie.isWord(trie.root()), true, start[canonical[trie.root()]]);
+      for (int id = 0; id < representative.size(); id++) {
+         int i = start[id];
+         for (int c = trie.firstChild(representative.get(id)); c != NONE; c = trie.nextSibling(c)) {
+            boolean last = trie.nextSibling(c) == NONE;
+            packed[i++] = pack(trie.label(c), trie.isWord(c), last, start[canonical[c]]);
+         }
+      }
+      return new DawgLexicon(LongBuffer.wrap(packed), trie.size());
+   }
+
+   /**
+    * Writes this DAWG to a binary file that load can map.
+    *
+    * @param fileName the file to write
+    * @throws IOException if the file cannot be written
+    */
+   public void write(String fileName) throws IOException {
+      try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(fileName)))) {
+         out.writeInt(MAGIC);
+         out.writeInt(words);
+         out.writeLong(edges.limit());
+         for (int i = 0; i < edges.limit(); i++) {
+            out.writeLong(edges.get(i));
+         }
+      }
+   }
+
+   /**
+    * Maps a DAWG file written by write.
+    *
+    * @param fileName the file to map
+    * @return the DAWG
+    * @throws IllegalArgumentException if the file cannot be read or is not a DAWG
+    */
+   public static DawgLexicon load(String fileName) {
+      try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+           FileChannel channel = file.getChannel()) {
+         ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         if (map.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a DAWG file");
+         }
+         int words = map.getInt(4);
+         long count = map.getLong(8);
+         map.position(HEADER_BYTES);
+         LongBuffer edges = map.slice().asLongBuffer();
+         if (edges.limit() != count) {
+            throw new IllegalArgumentException("truncated DAWG file");
+         }
+         return new DawgLexicon(edges, words);
+      }
+      catch (IOException e) {
+         throw new IllegalArgumentException(e);
+      }
+   }
+
+   /**
+    * Returns true if the named file starts like a DAWG file.
+    *
+    * @param fileName the file to check
+    */
+   public static boolean isDawg(String fileName) {
+      try (DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+         return in.readInt() == MAGIC;
+      }
+      catch (IOException e) {
+         return false;
+      }
+   }
+
+   @Override
+   public int root() {
+      return 0;
+   }
+
+   @Override
+   public int step(int cursor, char c) {
+      int i = (int) (edges.get(cursor) >>> 32);
+      if (i == 0) {
+         return NONE;
+      }
+      while (true) {
+         long edge = edges.get(i);
+         if ((char) edge == c) {
+            return i;
+         }
+         if ((edge & LAST) != 0) {
+            return NONE;
+         }
+         i++;
+      }
+   }
+
+   @Override
+   public boolean isWord(int cursor) {
+      return (edges.get(cursor) & TERMINAL) != 0;
+   }
+
+   @Override
+   public int size() {
+      return words;
+   }
+
+   /**
+    * Returns the number of edges in the graph.
+    */
+   public int edgeCount() {
+      return edges.limit();
+   }
+
+   private static long pack(char c, boolean terminal, boolean last, int target) {
+      long edge = c | ((long) target << 32);
+      if (terminal) {
+         edge |= TERMINAL;
+      }
+      if (last) {
+         edge |= LAST;
+      }
+      return edge;
+   }
+
+   private static int number(TrieLexicon trie, int node, HashMap<String, Integer> ids,
+                             List<Integer> representative, int[] canonical) {
+      StringBuilder key = new StringBuilder();
+      for (int c = trie.firstChild(node); c != NONE; c = trie.nextSibling(c)) {
+         int child = number(trie, c, ids, representative, canonical);
+         key.append(trie.label(c)).append(trie.isWord(c) ? '+' : '-').append(child).append(',');
+      }
+      Integer id = ids.get(key.toString());
+      if (id == null) {
+         id = representative.size();
+         ids.put(key.toString(), id);
+         representative.add(node);
+      }
+      canonical[node] = id;
+      return id;
+   }
+
+   /**
+    * Compiles a word list into a DAWG file.
+    * Usage: java DawgLexicon OWL.txt OWL.dawg
+    */
+   public static void main(String[] args) throws IOException {
+      if (args.length != 2) {
+         System.err.println("usage: java DawgLexicon words.txt words.dawg");
+         System.exit(1);
+      }
+      DawgLexicon dawg = build(TrieLexicon.load(args[0]));
+      dawg.write(args[1]);
+      System.out.println(dawg.size() + " words, " + dawg.edgeCount() + " edges");
+   }
+}
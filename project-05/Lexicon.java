@@ -0,0 +1,70 @@
+/**
+ * A read-only word list that can be searched one character at a time.
+ *
+ * A cursor is an int naming a prefix: root() names the empty prefix and
+ * step extends a cursor by one character. This lets a board search carry
+ * a cursor along its path instead of looking up the whole string again at
+ * every tile. Words are stored in upper case, and step expects upper case
+ * characters.
+ *
+ * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
+ */
+public interface Lexicon {
+   /** The cursor returned when no word continues with the given character. */
+   int NONE = -1;
+
+   /**
+    * Returns the cursor for the empty prefix.
+    */
+   int root();
+
+   /**
+    * Moves a cursor down by one character.
+    *
+    * @param cursor a cursor returned by root or step
+    * @param c the next character, in upper case
+    * @return the cursor for the longer prefix, or NONE if no word has it
+    */
+   int step(int cursor, char c);
+
+   /**
+    * Returns true if the prefix a cursor stands for is itself a word.
+    *
+    * @param cursor a cursor returned by root or step
+    */
+   boolean isWord(int cursor);
+
+   /**
+    * Returns the number of words in this lexicon.
+    */
+   int size();
+
+   /**
+    * Returns the cursor reached by stepping through every character of s
+    * (converted to upper case), or NONE if no word starts with s.
+    *
+    * @param cursor the cursor to start from
+    * @param s the characters to step through
+    */
+   default int walk(int cursor, CharSequence s) {
+      for (int i = 0; i < s.length() && cursor != NONE; i++) {
+         cursor = step(cursor, Character.toUpperCase(s.charAt(i)));
+      }
+      return cursor;
+   }
+
+   /**
+    * Returns true if s, ignoring case, is a word in this lexicon.
+    */
+   default boolean contains(String s) {
+      int cursor = walk(root(), s);
+      return cursor != NONE && isWord(cursor);
+   }
+
+   /**
+    * Returns true if at least one word starts with s, ignoring case.
+    */
+   default boolean hasPrefix(String s) {
+      return walk(root(), s) != NONE;
+   }
+}
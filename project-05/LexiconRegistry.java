@@ -0,0 +1,96 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads each lexicon file once and hands the same immutable Lexicon to every
+ * game that asks for it, so thousands of games share one copy of a
+ * dictionary instead of each holding its own.
+ *
+ * Lexicons are found by file path first. A path not seen before (or whose
+ * file changed size or modification time) is hashed with SHA-256, so copies
+ * of the same word list under different names still share one lexicon.
+ * Every method is safe to call from many threads, and a file is loaded at
+ * most once even if many threads ask for it at the same time.
+ *
+ * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
+ */
+public final class LexiconRegistry {
+   private static final ConcurrentHashMap<String, Lexicon> BY_PATH =
+      new ConcurrentHashMap<String, Lexicon>();
+   private static final ConcurrentHashMap<String, Lexicon> BY_HASH =
+      new ConcurrentHashMap<String, Lexicon>();
+
+   private LexiconRegistry() {
+   }
+
+   /**
+    * Returns the lexicon stored in the named file, loading it only if no
+    * file with the same path or content has been loaded before. DAWG files
+    * are memory mapped; other files are read as word lists.
+    *
+    * @param fileName the file holding the lexicon
+    * @return the shared lexicon
+    * @throws IllegalArgumentException if fileName is null or cannot be read.
+    */
+   public static Lexicon get(String fileName) {
+      if (fileName == null) {
+         throw new IllegalArgumentException("File is null");
+      }
+      File file = new File(fileName);
+      if (!file.isFile()) {
+         throw new IllegalArgumentException("cannot open " + fileName);
+      }
+      String pathKey;
+      try {
+         pathKey = file.getCanonicalPath() + "|" + file.length() + "|" + file.lastModified();
+      }
+      catch (IOException e) {
+         throw new IllegalArgumentException(e);
+      }
+      Lexicon lexicon = BY_PATH.get(pathKey);
+      if (lexicon == null) {
+         lexicon = BY_HASH.computeIfAbsent(hash(file), h -> load(fileName));
+         BY_PATH.putIfAbsent(pathKey, lexicon);
+      }
+      return lexicon;
+   }
+
+   /**
+    * Forgets every loaded lexicon. Games already holding one keep using it.
+    */
+   public static void clear() {
+      BY_PATH.clear();
+      BY_HASH.clear();
+   }
+
+   private static Lexicon load(String fileName) {
+      if (DawgLexicon.isDawg(fileName)) {
+         return DawgLexicon.load(fileName);
+      }
+      return TrieLexicon.load(fileName);
+   }
+
+   private static String hash(File file) {
+      try (InputStream in = new FileInputStream(file)) {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         byte[] buffer = new byte[1 << 16];
+         int n;
+         while ((n = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, n);
+         }
+         StringBuilder hex = new StringBuilder();
+         for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+         }
+         return hex.toString();
+      }
+      catch (IOException | NoSuchAlgorithmException e) {
+         throw new IllegalArgumentException(e);
+      }
+   }
+}
@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A lexicon stored as a trie of parallel arrays, where a cursor is the
+ * index of a trie node. A TrieLexicon never changes after it is built and
+ * is safe to share between threads.
+ *
+ * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
+ */
+public final class TrieLexicon implements Lexicon {
+   private final char[] label;
+   private final int[] firstChild;
+   private final int[] nextSibling;
+   private final boolean[] word;
+   private final int nodes;
+   private final int words;
+
+   /**
+    * Builds a lexicon holding the given words, converted to upper case.
+    *
+    * @param words the words to store
+    * @throws IllegalArgumentException if words or any word is null
+    */
+   public TrieLexicon(Iterable<String> words) {
+      if (words == null) {
+         throw new IllegalArgumentException("words is null");
+      }
+      Builder b = new Builder();
+      for (String w : words) {
+         if (w == null) {
+            throw new IllegalArgumentException("word is null");
+         }
+         b.add(w.toUpperCase());
+      }
+      b.resize(b.nodes);
+      label = b.label;
+      firstChild = b.firstChild;
+      nextSibling = b.nextSibling;
+      word = b.word;
+      nodes = b.nodes;
+      this.words = b.words;
+   }
+
+   /**
+    * Reads a word list where the first token on each line is a word.
+    *
+    * @param fileName the file to read
+    * @return the lexicon holding those words
+    * @throws IllegalArgumentException if fileName cannot be opened or read.
+    */
+   public static TrieLexicon load(String fileName) {
+      try {
+         return new TrieLexicon(WordListReader.read(fileName, true));
+      }
+      catch (IOException e) {
+         throw new IllegalArgumentException();
+      }
+   }
+
+   @Override
+   public int root() {
+      return 0;
+   }
+
+   @Override
+   public int step(int cursor, char c) {
+      for (int n = firstChild[cursor]; n != NONE; n = nextSibling[n]) {
+         if (label[n] == c) {
+            return n;
+         }
+      }
+      return NONE;
+   }
+
+   @Override
+   public boolean isWord(int cursor) {
+      return word[cursor];
+   }
+
+   @Override
+   public int size() {
+      return words;
+   }
+
+   /** Returns the number of trie nodes. Used to build a DAWG. */
+   int nodeCount() {
+      return nodes;
+   }
+
+   /** Returns the first child of a node, or NONE. Used to build a DAWG. */
+   int firstChild(int node) {
+      return firstChild[node];
+   }
+
+   /** Returns the next sibling of a node, or NONE. Used to build a DAWG. */
+   int nextSibling(int node) {
+      return nextSibling[node];
+   }
+
+   /** Returns the character on the edge into a node. Used to build a DAWG. */
+   char label(int node) {
+      return label[node];
+   }
+
+   /**
+    * Grows the trie arrays while words are added. The finished arrays are
+    * handed to the lexicon, which never changes them.
+    */
+   private static final class Builder {
+      private char[] label = new char[1024];
+      private int[] firstChild = new int[1024];
+      private int[] nextSibling = new int[1024];
+      private boolean[] word = new boolean[1024];
+      private int nodes;
+      private int words;
+   
+      Builder() {
+         newNode('\0');
+      }
+   
+      void add(String w) {
+         int node = 0;
+         for (int i = 0; i < w.length(); i++) {
+            char c = w.charAt(i);
+            int child = step(node, c);
+            if (child == NONE) {
+               child = newNode(c);
+               nextSibling[child] = firstChild[node];
+               firstChild[node] = child;
+            }
+            node = child;
+         }
+         if (!word[node]) {
+            word[node] = true;
+            words++;
+         }
+      }
+   
+      private int step(int node, char c) {
+         for (int n = firstChild[node]; n != NONE; n = nextSibling[n]) {
+            if (label[n] == c) {
+               return n;
+            }
+         }
+         return NONE;
+      }
+   
+      private int newNode(char c) {
+         if (nodes == label.length) {
+            resize(2 * nodes);
+         }
+         label[nodes] = c;
+         firstChild[nodes] = NONE;
+         nextSibling[nodes] = NONE;
+         word[nodes] = false;
+         return nodes++;
+      }
+   
+      void resize(int capacity) {
+         label = Arrays.copyOf(label, capacity);
+         firstChild = Arrays.copyOf(firstChild, capacity);
+         nextSibling = Arrays.copyOf(nextSibling, capacity);
+         word = Arrays.copyOf(word, capacity);
+      }
+   }
+}
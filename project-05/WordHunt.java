@@ -1,33 +1,22 @@
 //Imports
-import java.io.File;
-import java.io.FileReader;
-import java.io.BufferedReader;
-import java.util.Iterator;
 import java.util.List;
 import java.lang.Math;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Scanner;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.SortedSet;
+import java.util.stream.Stream;
 
 /**
  * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
  */
 
 public class WordHunt implements WordSearchGame {
-   private TreeSet<String> lexicon;
+   private Lexicon lexicon;
    private String[][] searchBoard;
-   private String validWord;
    private int width, height;
-   private boolean[][] marked;
-   private static final int nearby = 8;
-   private ArrayList<Integer> path;
-   private SortedSet<String> allWords;
-   private ArrayList<Position> newPath;
+   private BoardSolver solver;
+   private boolean boardChanged;
 
    //Constructor
    public WordHunt() {
@@ -35,33 +24,37 @@ public class WordHunt implements WordSearchGame {
       lexicon = null;
       width = searchBoard.length;
       height = searchBoard[0].length;
-      resetBoard();
    }
 
    /**
-    * Loads the lexicon into a data structure for later use.
+    * Creates a game that uses an already loaded lexicon. Lexicons are
+    * immutable, so one can be shared by any number of games and threads.
+    *
+    * @param lexicon the lexicon to use
+    * @throws IllegalArgumentException if lexicon is null
+    */
+   public WordHunt(Lexicon lexicon) {
+      this();
+      if (lexicon == null) {
+         throw new IllegalArgumentException("lexicon is null");
+      }
+      this.lexicon = lexicon;
+   }
+
+   /**
+    * Loads the lexicon into a data structure for later use. The lexicon comes
+    * from LexiconRegistry, so games loading the same file share one copy.
     *
     * @param fileName A string containing the name of the file to be opened.
     * @throws IllegalArgumentException if fileName is null
     * @throws IllegalArgumentException if fileName cannot be opened.
     */
    public void loadLexicon(String fileName) {
-      lexicon = new TreeSet<String>();
       if (fileName == null) {
          throw new IllegalArgumentException("File is null");
       }
-      try {
-         Scanner scan = new Scanner(new BufferedReader(new FileReader(new File(fileName))));
-         while (scan.hasNext()) {
-            String letter = scan.next();
-            letter = letter.toUpperCase();
-            lexicon.add(letter);
-            scan.nextLine();
-         }
-      }
-      catch (java.io.FileNotFoundException e) {
-         throw new IllegalArgumentException();
-      }
+      lexicon = LexiconRegistry.get(fileName);
+      solver = null;
    }
 
    /**
@@ -94,7 +87,7 @@ public class WordHunt implements WordSearchGame {
             index++;
          }
       }
-      resetBoard();
+      boardChanged = true;
    }
 
    /**
@@ -133,48 +126,102 @@ public class WordHunt implements WordSearchGame {
       if (lexicon == null) {
          throw new IllegalStateException();
       }
-      newPath = new ArrayList<Position>();
-      allWords = new TreeSet<String>();
-      validWord = "";
-      for (int i = 0; i < height; i++) {
-         for (int j = 0; j < width; j ++) {
-            validWord = searchBoard[i][j];
-            if (isValidWord(validWord) && validWord.length() >= minimumWordLength) {
-               allWords.add(validWord);
-            }
-            if (isValidPrefix(validWord)) {
-               Position temp = new Position(i,j);
-               newPath.add(temp);
-               boardSearch(i, j, minimumWordLength);
-               newPath.remove(temp);
-            }
-         }
+      return solver().solve(minimumWordLength);
+   }
+
+   /**
+    * Retrieves all scorable words on the game board, optionally searching
+    * from different starting tiles in parallel. The parallel search only
+    * pays off on large boards.
+    *
+    * @param minimumWordLength The minimum allowed length (i.e., number of
+    *     characters) for any word found on the board.
+    * @param parallel whether to spread the search over the common fork-join pool
+    * @return java.util.SortedSet which contains all the words of minimum length
+    *     found on the game board and in the lexicon.
+    * @throws IllegalArgumentException if minimumWordLength < 1
+    * @throws IllegalStateException if loadLexicon has not been called.
+    */
+   public SortedSet<String> getAllScorableWords(int minimumWordLength, boolean parallel) {
+      if (!parallel) {
+         return getAllScorableWords(minimumWordLength);
+      }
+      if (minimumWordLength < 1) {
+         throw new IllegalArgumentException();
+      }
+      if (lexicon == null) {
+         throw new IllegalStateException();
+      }
+      return solver().solveParallel(minimumWordLength);
+   }
+
+   /**
+    * Hands each scorable word on the game board, with its path, to a visitor
+    * as the search finds it. The search stops as soon as the visitor returns
+    * false, so nothing past that word is searched or collected.
+    *
+    * @param minimumWordLength The minimum allowed length (i.e., number of
+    *     characters) for any word found on the board.
+    * @param distinct If true, each word is visited once, with the first path
+    *     found for it; otherwise a word is visited once per path.
+    * @param visitor Receives the words.
+    * @return the number of words visited
+    * @throws IllegalArgumentException if minimumWordLength < 1, or visitor is null.
+    * @throws IllegalStateException if loadLexicon has not been called.
+    */
+   public int visitScorableWords(int minimumWordLength, boolean distinct, WordVisitor visitor) {
+      if (minimumWordLength < 1 || visitor == null) {
+         throw new IllegalArgumentException();
+      }
+      if (lexicon == null) {
+         throw new IllegalStateException();
+      }
+      return solver().visit(minimumWordLength, distinct, visitor);
+   }
+
+   /**
+    * Returns the scorable words on the game board as a lazy stream, each word
+    * once, in the order the search finds them. The board is searched only as
+    * far as the stream is consumed. The stream should be used up before the
+    * board is changed.
+    *
+    * @param minimumWordLength The minimum allowed length (i.e., number of
+    *     characters) for any word found on the board.
+    * @return java.util.stream.Stream of the scorable words
+    * @throws IllegalArgumentException if minimumWordLength < 1
+    * @throws IllegalStateException if loadLexicon has not been called.
+    */
+   public Stream<String> scorableWords(int minimumWordLength) {
+      if (minimumWordLength < 1) {
+         throw new IllegalArgumentException();
       }
-      return allWords;
+      if (lexicon == null) {
+         throw new IllegalStateException();
+      }
+      return solver().stream(minimumWordLength);
    }
 
-   private void boardSearch(int x, int y, int min) {
-      Position start = new Position(x, y);
-      resetBoard();
-      resetPath();
-      for (Position p : start.nearby()) {
-         if (!isMarked(p)) {
-            visit(p);
-            if (isValidPrefix(validWord + searchBoard[p.x][p.y])) {
-               validWord += searchBoard[p.x][p.y];
-               newPath.add(p);
-               if (isValidWord(validWord) && validWord.length() >= min) {
-                  allWords.add(validWord);
-               }
-               boardSearch(p.x, p.y, min);
-               newPath.remove(p);
-               int end = validWord.length() - searchBoard[p.x][p.y].length();
-               validWord = validWord.substring(0, end);
+   /**
+    * Returns the solver for the current lexicon, handing it the board if the
+    * board changed since it was last used. The solver is kept between boards
+    * so its arrays are reused.
+    */
+   private BoardSolver solver() {
+      if (solver == null) {
+         solver = new BoardSolver(lexicon);
+         boardChanged = true;
+      }
+      if (boardChanged) {
+         String[] letterArray = new String[width * height];
+         for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+               letterArray[i * width + j] = searchBoard[i][j];
             }
          }
+         solver.setBoard(letterArray);
+         boardChanged = false;
       }
-      resetBoard();
-      resetPath();
+      return solver;
    }
 
    /**
@@ -197,12 +244,24 @@ public class WordHunt implements WordSearchGame {
       if (lexicon == null) {
          throw new IllegalStateException();
       }
+      // Put the candidate words in a trie and search the board for all of
+      // them at once, so words sharing a prefix share the work.
+      List<String> candidates = new ArrayList<String>();
+      for (String word : words) {
+         if (word.length() >= minimumWordLength && isValidWord(word)) {
+            candidates.add(word);
+         }
+      }
+      if (candidates.isEmpty()) {
+         return 0;
+      }
+      Set<String> onBoard = new HashSet<String>();
+      for (String word : solver().solve(new TrieLexicon(candidates), minimumWordLength)) {
+         onBoard.add(word.toUpperCase());
+      }
       int score = 0;
-      Iterator<String> itr = words.iterator();
-      while (itr.hasNext()) {
-         String word = itr.next();
-         if (word.length() >= minimumWordLength && isValidWord(word)
-                && !isOnBoard(word).isEmpty()) {
+      for (String word : candidates) {
+         if (onBoard.contains(word.toUpperCase())) {
             score += (word.length() - minimumWordLength) + 1;
          }
       }
@@ -224,7 +283,6 @@ public class WordHunt implements WordSearchGame {
       if (wordToCheck == null) {
          throw new IllegalArgumentException();
       }
-      wordToCheck = wordToCheck.toUpperCase();
       return lexicon.contains(wordToCheck);
    }
 
@@ -244,12 +302,7 @@ public class WordHunt implements WordSearchGame {
       if (prefixToCheck == null) {
          throw new IllegalArgumentException();
       }
-      prefixToCheck = prefixToCheck.toUpperCase();
-      String word = lexicon.ceiling(prefixToCheck);
-      if (word != null) {
-         return word.startsWith(prefixToCheck);
-      }
-      return false;
+      return lexicon.hasPrefix(prefixToCheck);
    }
 
    /**
@@ -272,124 +325,6 @@ public class WordHunt implements WordSearchGame {
       if (lexicon == null) {
          throw new IllegalStateException();
       }
-      newPath = new ArrayList<Position>();
-      wordToCheck = wordToCheck.toUpperCase();
-      validWord = "";
-      path = new ArrayList<Integer>();
-      for (int i = 0; i < height; i++) {
-         for (int j = 0; j < width; j ++) {
-            if (wordToCheck.equals(searchBoard[i][j])) {
-               path.add(i * width + j);
-               return path;
-            }
-            if (wordToCheck.startsWith(searchBoard[i][j])) {
-               Position pos = new Position(i, j);
-               newPath.add(pos);
-               validWord = searchBoard[i][j];
-               search(i, j, wordToCheck);
-            
-               if (!wordToCheck.equals(validWord)) {
-                  newPath.remove(pos);
-               }
-               else {
-                  for (Position p: newPath) {
-                     path.add((p.x * width) + p.y);
-                  }
-                  return path;
-               }
-            }
-         }
-      }
-      return path;
-   }
-
-   /**
-    * DFS for board
-    * @param x the x value
-    * @param y the y value
-    * @param wordToCheck the word to check for.
-    */
-   private void search(int x, int y, String wordToCheck) {
-      Position start = new Position(x, y);
-      resetBoard();
-      resetPath();
-      for (Position spot: start.nearby()) {
-         if (!isMarked(spot)) {
-            visit(spot);
-            if (wordToCheck.startsWith(validWord + searchBoard[spot.x][spot.y])) {
-               validWord += searchBoard[spot.x][spot.y];
-               newPath.add(spot);
-               search(spot.x, spot.y, wordToCheck);
-               if (wordToCheck.equals(validWord)) {
-                  return;
-               }
-               else {
-                  newPath.remove(spot);
-                  int end = validWord.length() - searchBoard[spot.x][spot.y].length();
-                  validWord = validWord.substring(0, end);
-               }
-            }
-         }
-      }
-      resetBoard();
-      resetPath();
-   }
-
-
-   private void resetBoard() {
-      marked = new boolean[width][height];
-      for (boolean[] row : marked) {
-         Arrays.fill(row, false);
-      }
-   }
-
-   private void resetPath() {
-      for (int i = 0; i < newPath.size(); i ++) {
-         visit(newPath.get(i));
-      }
-   }
-
-   private class Position {
-      int x;
-      int y;
-   
-      public Position(int x, int y) {
-         this.x = x;
-         this.y = y;
-      }
-   
-      @Override
-      public String toString() {
-         return "(" + x + ", " + y + ")";
-      }
-   
-      public Position[] nearby() {
-         Position[] nbrs = new Position[nearby];
-         int count = 0;
-         Position p;
-         for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-               if (!((i == 0) && (j == 0))) {
-                  p = new Position(x + i, y + j);
-                  if (isValid(p)) {
-                     nbrs[count++] = p;
-                  }
-               }
-            }
-         }
-         return Arrays.copyOf(nbrs, count);
-      }
-   }
-
-   private boolean isValid(Position p) {
-      return (p.x >= 0) && (p.x < width) && (p.y >= 0) && (p.y < height);
-   }
-
-   private boolean isMarked(Position p) {
-      return marked[p.x][p.y];
-   }
-
-   private void visit(Position p) {
-      marked[p.x][p.y] = true;
+      return solver().findPath(wordToCheck);
    }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads word lists where the first token on each line is a word and the
+ * rest of the line is ignored, as Scanner's next() followed by nextLine()
+ * would, but without Scanner's regular expressions.
+ *
+ * Input is read in large byte blocks and split by hand. Words made only of
+ * ASCII bytes are case folded byte by byte and turned into Strings with no
+ * decoding step; any other word is decoded with the default charset, as
+ * Scanner would, and folded with String's case methods. The input must use
+ * an ASCII-compatible encoding such as UTF-8.
+ *
+ * WordHunt and Doublets each keep an identical copy of this class.
+ *
+ * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
+ */
+public final class WordListReader {
+   private static final int BLOCK = 1 << 16;
+
+   // Parser states between blocks.
+   private static final int BETWEEN_WORDS = 0;
+   private static final int IN_WORD = 1;
+   private static final int REST_OF_LINE = 2;
+
+   private WordListReader() {
+   }
+
+   /**
+    * Reads the first token of every non-blank line. The stream is left open.
+    *
+    * @param in the word list
+    * @param upperCase true to convert words to upper case, false for lower case
+    * @return the words, in file order
+    * @throws IOException if in cannot be read
+    */
+   public static List<String> read(InputStream in, boolean upperCase) throws IOException {
+      List<String> words = new ArrayList<String>();
+      byte[] block = new byte[BLOCK];
+      byte[] token = new byte[64];
+      int length = 0;
+      boolean ascii = true;
+      int state = BETWEEN_WORDS;
+      int n;
+      while ((n = in.read(block, 0, BLOCK)) != -1) {
+         for (int i = 0; i < n; i++) {
+            byte b = block[i];
+            if (state == REST_OF_LINE) {
+               if (b == '\n' || b == '\r') {
+                  state = BETWEEN_WORDS;
+               }
+            }
+            else if (isWhitespace(b)) {
+               if (state == IN_WORD) {
+                  words.add(word(token, length, ascii, upperCase));
+                  state = b == '\n' || b == '\r' ? BETWEEN_WORDS : REST_OF_LINE;
+               }
+            }
+            else {
+               if (state == BETWEEN_WORDS) {
+                  state = IN_WORD;
+                  length = 0;
+                  ascii = true;
+               }
+               if (length == token.length) {
+                  token = Arrays.copyOf(token, 2 * length);
+               }
+               token[length++] = b;
+               ascii &= b >= 0;
+            }
+         }
+      }
+      if (state == IN_WORD) {
+         words.add(word(token, length, ascii, upperCase));
+      }
+      return words;
+   }
+
+   /**
+    * Reads the first token of every non-blank line of a file.
+    *
+    * @param fileName the file to read
+    * @param upperCase true to convert words to upper case, false for lower case
+    * @return the words, in file order
+    * @throws IOException if the file cannot be opened or read
+    */
+   public static List<String> read(String fileName, boolean upperCase) throws IOException {
+      try (InputStream in = new FileInputStream(fileName)) {
+         return read(in, upperCase);
+      }
+   }
+
+   /**
+    * Matches Character.isWhitespace for ASCII bytes.
+    */
+   private static boolean isWhitespace(byte b) {
+      return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+   }
+
+   private static String word(byte[] token, int length, boolean ascii, boolean upperCase) {
+      if (!ascii) {
+         String decoded = new String(token, 0, length, Charset.defaultCharset());
+         return upperCase ? decoded.toUpperCase() : decoded.toLowerCase();
+      }
+      for (int i = 0; i < length; i++) {
+         byte b = token[i];
+         if (upperCase && b >= 'a' && b <= 'z') {
+            token[i] = (byte) (b - ('a' - 'A'));
+         }
+         else if (!upperCase && b >= 'A' && b <= 'Z') {
+            token[i] = (byte) (b + ('a' - 'A'));
+         }
+      }
+      return new String(token, 0, length, StandardCharsets.ISO_8859_1);
+   }
+
+   /**
+    * Prints how long each word list given on the command line takes to load.
+    * Usage: java WordListReader OWL.txt sowpods.txt
+    */
+   public static void main(String[] args) throws IOException {
+      for (String fileName : args) {
+         long start = System.nanoTime();
+         List<String> words = read(fileName, true);
+         long elapsed = System.nanoTime() - start;
+         System.out.println(fileName + ": " + words.size() + " words in "
+            + elapsed / 1000000 + " ms");
+      }
+   }
+}
@@ -1,6 +1,7 @@
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.stream.Stream;
 
 /**
  * Defines the methods needed to play a word search game.
@@ -64,6 +65,50 @@ public interface WordSearchGame {
     * @throws IllegalStateException if loadLexicon has not been called.
     */  
     int getScoreForWords(SortedSet<String> words, int minimumWordLength);
+
+    /**
+     * Hands each scorable word on the game board, with its path, to a visitor
+     * as it is found, instead of collecting them all first. The search stops
+     * as soon as the visitor returns false, which gives both limits and
+     * cancellation.
+     *
+     * @param minimumWordLength The minimum allowed length (i.e., number of
+     *     characters) for any word found on the board.
+     * @param distinct If true, each word is visited once, with the first path
+     *     found for it; otherwise a word is visited once per path.
+     * @param visitor Receives the words.
+     * @return the number of words visited
+     * @throws IllegalArgumentException if minimumWordLength < 1, or visitor is null.
+     * @throws IllegalStateException if loadLexicon has not been called.
+     */
+    default int visitScorableWords(int minimumWordLength, boolean distinct, WordVisitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException();
+        }
+        int visits = 0;
+        for (String word : getAllScorableWords(minimumWordLength)) {
+            visits++;
+            if (!visitor.visit(word, isOnBoard(word))) {
+                break;
+            }
+        }
+        return visits;
+    }
+
+    /**
+     * Returns the scorable words on the game board as a stream, each word once.
+     * Implementations may search lazily, in which case operations such as limit
+     * or anyMatch end the search early and the words are not sorted.
+     *
+     * @param minimumWordLength The minimum allowed length (i.e., number of
+     *     characters) for any word found on the board.
+     * @return java.util.stream.Stream of the scorable words
+     * @throws IllegalArgumentException if minimumWordLength < 1
+     * @throws IllegalStateException if loadLexicon has not been called.
+     */
+    default Stream<String> scorableWords(int minimumWordLength) {
+        return getAllScorableWords(minimumWordLength).stream();
+    }
     
     /**
      * Determines if the given word is in the lexicon.
@@ -0,0 +1,18 @@
+import java.util.List;
+
+/**
+ * Receives the scorable words of a board one at a time, as the search
+ * finds them.
+ *
+ * @author Sathvik Prahadeeswaran (srp0061@auburn.edu)
+ */
+public interface WordVisitor {
+   /**
+    * Called for each word found.
+    *
+    * @param word the word, spelled as on the board
+    * @param path the row-major tile indexes that spell word
+    * @return true to keep searching, false to stop the search here
+    */
+   boolean visit(String word, List<Integer> path);
+}
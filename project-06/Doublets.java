@@ -1,6 +1,4 @@
-import java.io.BufferedReader;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 
 import java.util.*;
 
@@ -21,6 +19,14 @@ public class Doublets implements WordLadderGame {
    // table with chaining).
    /////////////////////////////////////////////////////////////////////////////
    TreeSet<String> lexicon;
+
+   // Words indexed for getNeighbors: byLength.get(n)[i] holds every word of
+   // length n sorted with the character at index i ignored. The words that
+   // differ from a given word only at index i then form one run, found by a
+   // binary search, so getNeighbors never scans the whole lexicon. The index
+   // is built in the constructor and never changed, so getNeighbors is safe
+   // to call from several threads.
+   private final HashMap<Integer, String[][]> byLength;
    
    /**
     * Instantiates a new instance of Doublets with the lexicon populated with
@@ -33,23 +39,50 @@ public class Doublets implements WordLadderGame {
          //////////////////////////////////////
          // INSTANTIATE lexicon OBJECT HERE  //
          //////////////////////////////////////
-         lexicon = new TreeSet<>();
-         Scanner s =
-            new Scanner(new BufferedReader(new InputStreamReader(in)));
-         while (s.hasNext()) {
-            String str = s.next();
-            /////////////////////////////////////////////////////////////
-            // INSERT CODE HERE TO APPROPRIATELY STORE str IN lexicon. //
-            /////////////////////////////////////////////////////////////
-            lexicon.add(str.toLowerCase());
-            s.nextLine();
-         }
+         lexicon = new TreeSet<>(WordListReader.read(in, false));
          in.close();
       }
       catch (java.io.IOException e) {
          System.err.println("Error reading from InputStream.");
          System.exit(1);
       }
+      byLength = index(lexicon);
+   }
+   
+   /**
+    * Groups words by length and sorts each group once per character index,
+    * ignoring the character at that index.
+    */
+   private static HashMap<Integer, String[][]> index(Collection<String> words) {
+      HashMap<Integer, List<String>> groups = new HashMap<>();
+      for (String word : words) {
+         groups.computeIfAbsent(word.length(), k -> new ArrayList<>()).add(word);
+      }
+      HashMap<Integer, String[][]> index = new HashMap<>();
+      for (Map.Entry<Integer, List<String>> group : groups.entrySet()) {
+         String[] sorted = group.getValue().toArray(new String[0]);
+         String[][] byIndex = new String[group.getKey()][];
+         for (int i = 0; i < byIndex.length; i++) {
+            byIndex[i] = sorted.clone();
+            Arrays.sort(byIndex[i], ignoring(i));
+         }
+         index.put(group.getKey(), byIndex);
+      }
+      return index;
+   }
+   
+   /**
+    * Orders words of equal length as if the character at index were absent.
+    */
+   private static Comparator<String> ignoring(int index) {
+      return (a, b) -> {
+         for (int i = 0; i < a.length(); i++) {
+            if (i != index && a.charAt(i) != b.charAt(i)) {
+               return a.charAt(i) - b.charAt(i);
+            }
+         }
+         return 0;
+      };
    }
    
    //////////////////////////////////////////////////////////////
@@ -107,10 +140,24 @@ public class Doublets implements WordLadderGame {
     */
    public List<String> getNeighbors(String word) {
       ArrayList<String> result = new ArrayList<>();
-      for (String item : lexicon) {
-         int i = getHammingDistance(word, item);
-         if (i == 1) result.add(item);
+      String[][] byIndex = byLength.get(word.length());
+      if (byIndex == null) return result;
+      for (int i = 0; i < word.length(); i++) {
+         Comparator<String> comparator = ignoring(i);
+         String[] words = byIndex[i];
+         int low = 0;
+         int high = words.length;
+         while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(words[mid], word) < 0) low = mid + 1;
+            else high = mid;
+         }
+         for (int j = low; j < words.length && comparator.compare(words[j], word) == 0; j++) {
+            if (!words[j].equals(word)) result.add(words[j]);
+         }
       }
+      // Keep the lexicon's order, as the full scan did.
+      Collections.sort(result);
       return result;
    }
    
@@ -150,36 +197,31 @@ public class Doublets implements WordLadderGame {
    * @return        a minimum length word ladder from start to end
    */
    public List<String> getMinLadder(String start, String end) {
-      ArrayList<String> result = new ArrayList<>();
-      ArrayList<String> parents = new ArrayList<>();
-      ArrayList<String> isVisited = new ArrayList<>();
-      result.add(start);
+      // Maps each word reached to the word it was reached from.
+      HashMap<String, String> parents = new HashMap<>();
       Deque<String> deque = new ArrayDeque<>();
       deque.addLast(start);
-      isVisited.add(start);
-      parents.add("NoOne");
+      parents.put(start, null);
       boolean canContinue = false;
       while (!deque.isEmpty() && !canContinue) {
          String item = deque.removeFirst();
          List<String> neighbors = getNeighbors(item);
          for (String token : neighbors) {
-            if (!isVisited.contains(token)) {
+            if (!parents.containsKey(token)) {
                deque.addLast(token);
-               isVisited.add(token);
-               result.add(token);
-               parents.add(item);
+               parents.put(token, item);
                if (token.equals(end)) canContinue = true;
             }
          }
       }
       ArrayList<String> emptyList = new ArrayList<>();
-      if (!result.contains(end)) 
+      if (!parents.containsKey(end)) 
          return emptyList;
       ArrayList<String> values = new ArrayList<>();
       values.add(end); 
       String word = end;
       while (!Objects.equals(word, start)) {
-         word = parents.get(result.indexOf(word));
+         word = parents.get(word);
          values.add(word);
       }
       ArrayList<String> valuesReal = new ArrayList<>();